@@ -0,0 +1,130 @@
+package quittrack;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local load test for {@link TrackerService}: a mix of saves (60%), streak (20%) and savings
+ * (20%) calls over many users, run at 1, 2, 4, … threads up to the core count, printing
+ * throughput and speed-up per step.
+ * <pre>
+ * java quittrack.ServiceLoadTest [--users 10000] [--days 365] [--seconds 3] [--http]
+ * </pre>
+ * {@code --http} drives the same mix through {@link TrackerHttpServer} on an ephemeral port
+ * (client requests on virtual threads, 16 in flight per "thread") instead of calling the
+ * service directly.
+ */
+public class ServiceLoadTest {
+    public static void main(String[] args) throws Exception {
+        int users = 10_000, days = 365, seconds = 3;
+        boolean http = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--users" -> users = Integer.parseInt(args[++i]);
+                case "--days" -> days = Integer.parseInt(args[++i]);
+                case "--seconds" -> seconds = Integer.parseInt(args[++i]);
+                case "--http" -> http = true;
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        long today = LocalDate.now().toEpochDay();
+        try (TrackerService service = new TrackerService(null)) {
+            long t = System.nanoTime();
+            seed(service, users, days, today);
+            System.out.printf(Locale.US, "Seeded %d users x %d days in %d ms%n", users, days, (System.nanoTime() - t) / 1_000_000);
+
+            int cores = Runtime.getRuntime().availableProcessors();
+            System.out.printf("%-8s %14s %9s%n", "threads", "ops/s", "speed-up");
+            double single = 0;
+            for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+                double opsPerSec = http ? runHttp(service, threads, users, days, today, seconds)
+                                        : runDirect(service, threads, users, days, today, seconds);
+                if (threads == 1) single = opsPerSec;
+                System.out.printf(Locale.US, "%-8d %,14.0f %8.2fx%n", threads, opsPerSec, opsPerSec / single);
+                if (threads == cores) break;
+            }
+        }
+    }
+
+    private static void seed(TrackerService service, int users, int days, long today) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        for (int u = 0; u < users; u++) {
+            String user = "u" + u;
+            service.mergeSettings(user, Map.of(Settings.QUIT_DATE, LocalDate.ofEpochDay(today - days + 1).toString()));
+            for (long d = today - days + 1; d <= today; d++) service.put(user, d, rnd.nextInt(10) < 8 ? 0 : rnd.nextInt(1, 15));
+        }
+    }
+
+    private static double runDirect(TrackerService service, int threads, int users, int days, long today, int seconds) throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(Thread.ofPlatform().name("load-" + i).start(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                long n = 0;
+                double sink = 0;
+                while ((n & 1023) != 0 || System.nanoTime() < deadline) {
+                    String user = "u" + rnd.nextInt(users);
+                    int op = rnd.nextInt(10);
+                    if (op < 6) service.put(user, today - rnd.nextInt(days), rnd.nextInt(0, 15));
+                    else if (op < 8) sink += service.currentStreak(user, today);
+                    else sink += service.moneySavedTotal(user);
+                    n++;
+                }
+                ops.add(n);
+                if (sink == -1) System.out.print(""); // keep the reads live
+            }));
+        }
+        for (Thread w : workers) w.join();
+        return ops.sum() / (double) seconds;
+    }
+
+    private static double runHttp(TrackerService service, int threads, int users, int days, long today, int seconds) throws Exception {
+        try (TrackerHttpServer server = new TrackerHttpServer(service, 0);
+             HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(java.util.concurrent.Executors.newVirtualThreadPerTaskExecutor()).build()) {
+            server.start();
+            String base = "http://localhost:" + server.port() + "/api/users/";
+            LongAdder ops = new LongAdder();
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+            List<Thread> workers = new ArrayList<>();
+            for (int i = 0; i < threads * 16; i++) {
+                workers.add(Thread.ofVirtual().start(() -> {
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        String user = base + "u" + rnd.nextInt(users);
+                        int op = rnd.nextInt(10);
+                        HttpRequest req;
+                        if (op < 6) {
+                            LocalDate d = LocalDate.ofEpochDay(today - rnd.nextInt(days));
+                            req = HttpRequest.newBuilder(URI.create(user + "/days/" + d))
+                                    .PUT(HttpRequest.BodyPublishers.ofString("{\"cigs\":" + rnd.nextInt(0, 15) + "}")).build();
+                        } else {
+                            req = HttpRequest.newBuilder(URI.create(user + "/summary")).GET().build();
+                        }
+                        try {
+                            HttpResponse<Void> r = client.send(req, HttpResponse.BodyHandlers.discarding());
+                            if (r.statusCode() != 200) throw new IllegalStateException("HTTP " + r.statusCode());
+                        } catch (InterruptedException e) {
+                            return;
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                        ops.increment();
+                    }
+                }));
+            }
+            for (Thread w : workers) w.join();
+            return ops.sum() / (double) seconds;
+        }
+    }
+}
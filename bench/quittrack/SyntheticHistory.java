@@ -0,0 +1,45 @@
+package quittrack;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Deterministic fake histories for the benchmarks: a smoker tapering off from the baseline
+ * towards zero over the first months, with occasional relapse days and a few unlogged gaps.
+ */
+final class SyntheticHistory {
+    /** The seed every benchmark uses, so runs compare like with like. */
+    static final long SEED = 42;
+
+    private SyntheticHistory() {}
+
+    /** {@code days} days ending today (quit date = first day), same seed same data. */
+    static LogModel model(int days, long seed) {
+        LogModel m = new LogModel();
+        Settings s = m.settings();
+        s.quitDate = LocalDate.now().minusDays(days - 1);
+        s.baselinePerDay = 20;
+        s.pricePerPack = 9.0;
+        fill(m.store(), s.quitDate.toEpochDay(), days, s.baselinePerDay, seed);
+        m.reindex();
+        return m;
+    }
+
+    static LogStore store(int days, long seed) {
+        LogStore store = new LogStore();
+        fill(store, LocalDate.now().minusDays(days - 1).toEpochDay(), days, 20, seed);
+        return store;
+    }
+
+    private static void fill(LogStore into, long firstDay, int days, int baseline, long seed) {
+        Random rnd = new Random(seed);
+        int taper = Math.min(days, 90);
+        for (int i = 0; i < days; i++) {
+            if (rnd.nextInt(50) == 0) continue; // forgot to log
+            int count;
+            if (i < taper) count = Math.max(0, baseline - baseline * i / taper + rnd.nextInt(3) - 1);
+            else count = rnd.nextInt(40) == 0 ? 1 + rnd.nextInt(5) : 0; // relapse
+            into.put(firstDay + i, count);
+        }
+    }
+}
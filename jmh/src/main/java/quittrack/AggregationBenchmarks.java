@@ -0,0 +1,119 @@
+package quittrack;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Streaks, savings, statistics and the weekly table over the indexed model. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class AggregationBenchmarks {
+    @Param({"30", "365", "3650", "18262"})
+    public int days;
+
+    private LogModel model;
+    private LogStore store;
+    private WeeklyTableModel weekly;
+    private long today;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        model = SyntheticHistory.model(days, SyntheticHistory.SEED);
+        store = model.store();
+        weekly = new WeeklyTableModel(store, model.aggregates());
+        today = LocalDate.now().toEpochDay();
+    }
+
+    /** One save somewhere in the history: a different count than before, so every index moves. */
+    private long touch() {
+        long day = today - (next++ % days);
+        model.put(day, (store.get(day) + 1) % 20);
+        return day;
+    }
+
+    /** What the weekly table reads to paint 20 rows. */
+    private void screenful(Blackhole bh) {
+        for (int row = 0; row < Math.min(20, weekly.getRowCount()); row++) {
+            for (int col = 0; col < weekly.getColumnCount(); col++) bh.consume(weekly.getValueAt(row, col));
+        }
+    }
+
+    @Benchmark
+    public int computeSmokeFreeStreak() {
+        return model.currentStreak(today);
+    }
+
+    @Benchmark
+    public double computeMoneySavedTotal() {
+        return model.moneySavedTotal();
+    }
+
+    /** One save, then what the Insights tab reads. */
+    @Benchmark
+    public void insightsAfterSave(Blackhole bh) {
+        model.put(today, (store.get(today) + 1) % 20);
+        bh.consume(model.rollingMean(today, 7));
+        bh.consume(model.rollingMean(today, 30));
+        bh.consume(model.rollingMean(today, 90));
+        bh.consume(model.histogram().quantile(0.5));
+        bh.consume(model.histogram().quantile(0.9));
+        bh.consume(model.stats().stdDev());
+        bh.consume(model.stats().trend());
+    }
+
+    /** Re-prices the 30 days starting 60 days ago. */
+    @Benchmark
+    public void pricesEditPast() {
+        int k = next++ & 1;
+        model.setPrice(new PriceHistory.Segment(today - 60, 7.0 + k, 20, 20 + k));
+        model.setPrice(new PriceHistory.Segment(today - 30, 8.0, 20, 20));
+    }
+
+    /** One tick of the what-if slider. */
+    @Benchmark
+    public double whatIfSavedTotal() {
+        return model.moneySavedTotal(next++ % 60, 0.35);
+    }
+
+    @Benchmark
+    public long modelPut() {
+        return touch();
+    }
+
+    @Benchmark
+    public void modelReindex() {
+        model.reindex();
+    }
+
+    @Benchmark
+    public void weeklyDayChanged(Blackhole bh) {
+        model.put(today, (store.get(today) + 1) % 20);
+        weekly.daysChanged(today, today);
+        screenful(bh);
+    }
+
+    @Benchmark
+    public void weeklySortByTotal(Blackhole bh) {
+        weekly.setOrder(WeeklyTableModel.Order.MOST);
+        screenful(bh);
+        weekly.setOrder(WeeklyTableModel.Order.NEWEST);
+    }
+}
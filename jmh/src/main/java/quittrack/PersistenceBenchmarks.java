@@ -0,0 +1,116 @@
+package quittrack;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Loading and saving the log: the mapped file plus journal, and CSV import/export. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PersistenceBenchmarks {
+    @Param({"30", "365", "3650", "18262"})
+    public int days;
+
+    private Path dir, bin, journalPath, csv;
+    private LogStore store;
+    private long today;
+    private LogJournal journal;
+    private LogJournal other; // another window on the same files
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("quittrack-jmh");
+        bin = dir.resolve("logs.bin");
+        journalPath = dir.resolve("logs.journal");
+        csv = dir.resolve("logs.csv");
+        store = SyntheticHistory.store(days, SyntheticHistory.SEED);
+        today = LocalDate.now().toEpochDay();
+        try (LogJournal seed = new LogJournal(LogFile.open(bin), journalPath)) {
+            seed.replaceAll(store);
+        }
+        LogCsv.write(store, csv);
+        journal = new LogJournal(LogFile.open(bin), journalPath);
+        journal.load(new LogStore());
+        other = new LogJournal(LogFile.open(bin), journalPath);
+        other.load(new LogStore());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try {
+            other.close();
+            journal.close();
+        } finally {
+            try (Stream<Path> s = Files.walk(dir)) {
+                List<Path> paths = s.sorted(Comparator.reverseOrder()).toList();
+                for (Path p : paths) Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    private long nextDay() {
+        return today - (next++ % days);
+    }
+
+    @Benchmark
+    public LogStore loadLogs() throws IOException {
+        LogStore into = new LogStore();
+        try (LogJournal j = new LogJournal(LogFile.open(bin), journalPath)) {
+            j.load(into);
+        }
+        return into;
+    }
+
+    @Benchmark
+    public LogCsv.ReadSummary loadLogsCsv() throws IOException {
+        return LogCsv.read(csv, new LogStore());
+    }
+
+    @Benchmark
+    public void saveLogsCsv() throws IOException {
+        LogCsv.write(store, csv);
+    }
+
+    @Benchmark
+    public void saveLogsAppendPut() throws IOException {
+        long day = nextDay();
+        journal.appendPut(day, store.get(day));
+    }
+
+    @Benchmark
+    public void saveLogsReplaceAll() throws IOException {
+        journal.replaceAll(store);
+    }
+
+    /** Another window saves a day; this one picks it up. */
+    @Benchmark
+    public LogJournal.Tail watchReadTail() throws IOException {
+        long day = nextDay();
+        other.appendPut(day, store.get(day));
+        return journal.readTail();
+    }
+}
@@ -0,0 +1,130 @@
+package quittrack;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Chart datasets, the month calendar and the heatmap, painted into offscreen images. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderingBenchmarks {
+    @Param({"30", "365", "3650", "18262"})
+    public int days;
+
+    private long today;
+    private TrendCharts charts;
+    private TrendCharts history;
+    private MonthCalendar calendar;
+    private BufferedImage calendarImage;
+    private YearHeatmap heatmap;
+    private BufferedImage heatmapImage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LogModel model = SyntheticHistory.model(days, SyntheticHistory.SEED);
+        LogStore store = model.store();
+        today = LocalDate.now().toEpochDay();
+
+        TrendCharts.Source chartSource = new TrendCharts.Source() {
+            @Override public int cigs(long epochDay) { return model.get(epochDay); }
+            @Override public boolean logged(long epochDay) { return store.contains(epochDay); }
+            @Override public long firstDay() { return store.firstDay(); }
+            @Override public long lastDay() { return store.lastDay(); }
+            @Override public long cigs(long fromDay, long toDay) { return model.aggregates().cigs(fromDay, toDay); }
+            @Override public double saved(long fromDay, long toDay) { return model.moneySaved(fromDay, toDay); }
+            @Override public String currency() { return model.settings().currency; }
+        };
+        charts = new TrendCharts(chartSource);
+        charts.show(TrendCharts.MONTHLY);
+        history = new TrendCharts(chartSource);
+        history.show(TrendCharts.HISTORY);
+
+        calendar = new MonthCalendar(new MonthCalendar.Source() {
+            @Override public int cigs(long epochDay) { return model.get(epochDay); }
+            @Override public String savedText(long epochDay, int cigs) { return model.settings().currency + String.format("%.2f", model.moneySavedOn(epochDay, cigs)); }
+        });
+        calendar.setSize(calendar.getPreferredSize());
+        calendar.setMonth(YearMonth.now());
+        calendarImage = new BufferedImage(calendar.getWidth(), calendar.getHeight(), BufferedImage.TYPE_INT_RGB);
+
+        heatmap = new YearHeatmap(new YearHeatmap.Source() {
+            @Override public int cigs(long epochDay) { return store.get(epochDay); }
+            @Override public boolean logged(long epochDay) { return store.contains(epochDay); }
+            @Override public long firstDay() { return store.firstDay(); }
+            @Override public long lastDay() { return store.lastDay(); }
+            @Override public int scaleMax() { return model.settings().baselinePerDay; }
+            @Override public String savedText(long epochDay, int cigs) { return model.settings().currency + String.format("%.2f", model.moneySavedOn(epochDay, cigs)); }
+        });
+        heatmap.setSize(heatmap.getPreferredSize());
+        Dimension view = heatmap.getPreferredScrollableViewportSize();
+        heatmapImage = new BufferedImage(view.width, view.height, BufferedImage.TYPE_INT_RGB);
+        paintHeatmap();
+    }
+
+    private BufferedImage paintHeatmap() {
+        Graphics2D g = heatmapImage.createGraphics();
+        g.setClip(0, 0, heatmapImage.getWidth(), heatmapImage.getHeight());
+        heatmap.paint(g);
+        g.dispose();
+        return heatmapImage;
+    }
+
+    @Benchmark
+    public TrendCharts chartsReloadAll() {
+        charts.reloadAll();
+        return charts;
+    }
+
+    @Benchmark
+    public TrendCharts chartsDayChanged() {
+        charts.dayChanged(today);
+        return charts;
+    }
+
+    @Benchmark
+    public TrendCharts chartsHistoryDayChanged() {
+        history.dayChanged(today);
+        return history;
+    }
+
+    @Benchmark
+    public BufferedImage calendarRefresh() {
+        calendar.invalidateAll();
+        Graphics2D g = calendarImage.createGraphics();
+        calendar.paint(g);
+        g.dispose();
+        return calendarImage;
+    }
+
+    @Benchmark
+    public BufferedImage heatmapDayChanged() {
+        heatmap.invalidateDay(today);
+        return paintHeatmap();
+    }
+
+    /** Repaints the view from cached tiles only. */
+    @Benchmark
+    public BufferedImage heatmapScroll() {
+        return paintHeatmap();
+    }
+}
@@ -0,0 +1,379 @@
+package quittrack;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Incremental backups in {@code ~/.quittrack/backups}: a gzip-compressed base snapshot followed
+ * by deltas holding only the days changed (or removed) since the previous backup point.
+ * Restoring a point loads the nearest base at or before it and replays the deltas after it.
+ * <p>
+ * A {@link Retention} keeps the newest point per hour, day and week for a configurable number
+ * of each; the newest point is always kept. A pruned point is folded into its successor (a
+ * base into the next delta, which becomes a base; a delta into the next delta), so every kept
+ * point still restores exactly.
+ * <p>
+ * {@link #changed} is cheap and may be called after every save: the snapshot is written on
+ * the "quittrack-backup" thread once saves have been quiet for a while. Callers only ever wait
+ * for the handoff of a snapshot, never for a backup being written.
+ */
+public class BackupStore {
+    /** Called on the backup thread; hop to the EDT before touching Swing. */
+    public interface Listener {
+        void backedUp(Point point);
+        void failed(String message);
+    }
+
+    /** One restorable point in time. */
+    public record Point(long seq, boolean base, LocalDateTime time, Path file, long bytes) {
+        @Override public String toString() {
+            return time.format(LABEL_FMT) + " (" + (base ? "full" : "changes") + ", " + Math.max(1, (bytes + 512) / 1024) + " KB)";
+        }
+    }
+
+    /** How many of the newest hourly, daily and weekly points to keep, written like {@code 24h,14d,8w}. */
+    public record Retention(int hours, int days, int weeks) {
+        public static final Retention DEFAULT = new Retention(24, 14, 8);
+
+        public static Retention parse(String s) {
+            int h = 0, d = 0, w = 0;
+            for (String part : s.split(",")) {
+                String p = part.trim();
+                if (p.isEmpty()) continue;
+                int n = Integer.parseInt(p.substring(0, p.length() - 1).trim());
+                if (n < 0) throw new IllegalArgumentException("Retention counts must be ≥0: " + s);
+                switch (Character.toLowerCase(p.charAt(p.length() - 1))) {
+                    case 'h' -> h = n;
+                    case 'd' -> d = n;
+                    case 'w' -> w = n;
+                    default -> throw new IllegalArgumentException("Retention must look like 24h,14d,8w: " + s);
+                }
+            }
+            return new Retention(h, d, w);
+        }
+
+        @Override public String toString() { return hours + "h," + days + "d," + weeks + "w"; }
+    }
+
+    private static final int MAGIC = 0x5154424B; // "QTBK"
+    private static final int REMOVED = -1;
+    private static final int MAX_CHAIN = 32;       // deltas after a base before the next base
+    private static final long QUIET_MILLIS = 30_000;
+    private static final Pattern FILE_NAME = Pattern.compile("(\\d{8})-([BD])-(\\d{8}_\\d{6})\\.qtb");
+    private static final DateTimeFormatter NAME_FMT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    private static final DateTimeFormatter LABEL_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Path dir;
+    private final Listener listener;
+    private final Clock clock;
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "quittrack-backup");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile Retention retention;
+
+    // Guarded by this: the handoff from the callers
+    private LogStore pending;         // newest snapshot not yet backed up
+    private ScheduledFuture<?> pendingTask;
+
+    // Guarded by files: the backup files, taken by the backup thread and by points/restore
+    private final Object files = new Object();
+    private LogStore last;            // content as of the newest point, loaded on first use
+
+    public BackupStore(Path dir, Retention retention, Listener listener) {
+        this(dir, retention, listener, Clock.systemDefaultZone());
+    }
+
+    /** With {@code clock} for the point times that retention buckets by. */
+    BackupStore(Path dir, Retention retention, Listener listener, Clock clock) {
+        this.dir = dir;
+        this.retention = retention;
+        this.listener = listener;
+        this.clock = clock;
+    }
+
+    public synchronized void setRetention(Retention retention) {
+        this.retention = retention;
+        if (!worker.isShutdown()) worker.execute(this::pruneQuietly);
+    }
+
+    /** The log now looks like {@code snapshot} (which must not be modified afterwards); back it up once things settle. */
+    public synchronized void changed(LogStore snapshot) {
+        pending = snapshot;
+        if (pendingTask != null) pendingTask.cancel(false);
+        if (!worker.isShutdown()) pendingTask = worker.schedule(this::runPending, QUIET_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Backs {@code snapshot} up right away (still off the caller's thread). */
+    public synchronized Future<Point> backupNow(LogStore snapshot) {
+        pending = null;
+        if (pendingTask != null) pendingTask.cancel(false);
+        return worker.submit(() -> backup(snapshot));
+    }
+
+    /** Writes any pending snapshot and stops the backup thread. Blocks for at most {@code timeoutMillis}. */
+    public void close(long timeoutMillis) throws InterruptedException {
+        synchronized (this) {
+            if (pendingTask != null) pendingTask.cancel(false);
+            if (pending != null) worker.execute(this::runPending);
+        }
+        worker.shutdown();
+        worker.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Every point on disk, oldest first. Waits for a backup being written; keep it off the EDT. */
+    public List<Point> points() throws IOException {
+        synchronized (files) {
+            List<Point> out = new ArrayList<>();
+            if (!Files.isDirectory(dir)) return out;
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*.qtb")) {
+                for (Path p : ds) {
+                    Matcher m = FILE_NAME.matcher(p.getFileName().toString());
+                    if (!m.matches()) continue;
+                    out.add(new Point(Long.parseLong(m.group(1)), m.group(2).equals("B"),
+                            LocalDateTime.parse(m.group(3), NAME_FMT), p, Files.size(p)));
+                }
+            }
+            out.sort(Comparator.comparingLong(Point::seq));
+            return out;
+        }
+    }
+
+    /** The log as it was at {@code point}. Waits for a backup being written; keep it off the EDT. */
+    public LogStore restore(Point point) throws IOException {
+        synchronized (files) {
+            return Telemetry.io("restoreBackup", point.file(), io -> {
+                List<Point> all = points();
+                int at = indexOf(all, point.seq());
+                int b = at;
+                while (b >= 0 && !all.get(b).base()) b--;
+                if (b < 0) throw new IOException("No full backup before " + point);
+                LogStore out = new LogStore();
+                for (int i = b; i <= at; i++) {
+                    apply(all.get(i).file(), out);
+                    io.read(all.get(i).bytes());
+                }
+                io.rows(out.size());
+                return out;
+            });
+        }
+    }
+
+    /** Whether {@code file} is named like a backup point. */
+    public static boolean isBackupFile(Path file) {
+        return FILE_NAME.matcher(file.getFileName().toString()).matches();
+    }
+
+    /** The log as it was at the point stored in {@code file}, which must be one of this store's. */
+    public LogStore restore(Path file) throws IOException {
+        synchronized (files) {
+            for (Point p : points()) {
+                if (Files.isSameFile(p.file(), file)) return restore(p);
+            }
+            throw new IOException(file.getFileName() + " is not a backup in " + dir);
+        }
+    }
+
+    // ---------- Backup thread ----------
+    private void runPending() {
+        LogStore snapshot;
+        synchronized (this) {
+            snapshot = pending;
+            pending = null;
+            pendingTask = null;
+        }
+        if (snapshot == null) return;
+        try {
+            backup(snapshot);
+        } catch (IOException | RuntimeException e) {
+            listener.failed(e.getMessage());
+        }
+    }
+
+    /** Writes a point if anything changed since the newest one; returns it, or null. */
+    private Point backup(LogStore snapshot) throws IOException {
+        synchronized (files) {
+            return Telemetry.io("exportBackup", dir, io -> writePoint(snapshot, io));
+        }
+    }
+
+    private Point writePoint(LogStore snapshot, Telemetry.Io io) throws IOException {
+        Files.createDirectories(dir);
+        List<Point> all = points();
+        if (last == null) last = all.isEmpty() ? new LogStore() : restore(all.get(all.size() - 1));
+
+        TreeMap<Long, Integer> delta = new TreeMap<>();
+        snapshot.forEach((day, count) -> {
+            if (!last.contains(day) || last.get(day) != count) delta.put(day, count);
+        });
+        last.forEach((day, count) -> {
+            if (!snapshot.contains(day)) delta.put(day, REMOVED);
+        });
+        if (delta.isEmpty()) return null;
+
+        int chain = 0;
+        for (int i = all.size() - 1; i >= 0 && !all.get(i).base(); i--) chain++;
+        boolean base = all.isEmpty() || chain >= MAX_CHAIN || delta.size() * 2L > snapshot.size();
+        long seq = all.isEmpty() ? 1 : all.get(all.size() - 1).seq() + 1;
+        LocalDateTime now = LocalDateTime.now(clock).truncatedTo(ChronoUnit.SECONDS);
+        if (!all.isEmpty() && !now.isAfter(all.get(all.size() - 1).time())) now = all.get(all.size() - 1).time().plusSeconds(1);
+        Path file = base ? write(seq, true, now, toMap(snapshot)) : write(seq, false, now, delta);
+        last = snapshot;
+        Point p = new Point(seq, base, now, file, Files.size(file));
+        io.written(p.bytes());
+        io.rows(base ? snapshot.size() : delta.size());
+        prune();
+        listener.backedUp(p);
+        return p;
+    }
+
+    private void pruneQuietly() {
+        try {
+            synchronized (files) {
+                prune();
+            }
+        } catch (IOException | RuntimeException e) {
+            listener.failed(e.getMessage());
+        }
+    }
+
+    private void prune() throws IOException {
+        List<Point> all = points();
+        Set<Long> keep = keptSeqs(all, LocalDateTime.now(clock));
+        for (int i = 0; i < all.size() - 1; i++) {
+            if (keep.contains(all.get(i).seq())) continue;
+            all.set(i + 1, fold(all.get(i), all.get(i + 1)));
+        }
+    }
+
+    /** Newest point of each of the newest {@code n} hours / days / weeks, plus the newest point overall. */
+    private Set<Long> keptSeqs(List<Point> all, LocalDateTime now) {
+        Set<Long> keep = new HashSet<>();
+        if (all.isEmpty()) return keep;
+        keep.add(all.get(all.size() - 1).seq());
+        keepNewestPerBucket(all, keep, retention.hours(), now.truncatedTo(ChronoUnit.HOURS), t -> t.truncatedTo(ChronoUnit.HOURS), ChronoUnit.HOURS);
+        keepNewestPerBucket(all, keep, retention.days(), now.truncatedTo(ChronoUnit.DAYS), t -> t.truncatedTo(ChronoUnit.DAYS), ChronoUnit.DAYS);
+        LocalDateTime week = now.toLocalDate().with(DayOfWeek.MONDAY).atStartOfDay();
+        keepNewestPerBucket(all, keep, retention.weeks(), week, t -> t.toLocalDate().with(DayOfWeek.MONDAY).atStartOfDay(), ChronoUnit.WEEKS);
+        return keep;
+    }
+
+    private static void keepNewestPerBucket(List<Point> all, Set<Long> keep, int n, LocalDateTime current,
+                                            java.util.function.UnaryOperator<LocalDateTime> bucketOf, ChronoUnit unit) {
+        if (n == 0) return;
+        LocalDateTime oldest = current.minus(n - 1, unit);
+        LocalDateTime seen = null;
+        for (int i = all.size() - 1; i >= 0; i--) { // newest first: the first point met in a bucket is its newest
+            LocalDateTime bucket = bucketOf.apply(all.get(i).time());
+            if (bucket.isBefore(oldest)) break;
+            if (!bucket.equals(seen)) {
+                keep.add(all.get(i).seq());
+                seen = bucket;
+            }
+        }
+    }
+
+    /** Drops {@code older} by merging it into {@code next}; returns the point that replaces {@code next}. */
+    private Point fold(Point older, Point next) throws IOException {
+        if (next.base()) {
+            Files.delete(older.file());
+            return next;
+        }
+        TreeMap<Long, Integer> merged;
+        if (older.base()) {
+            LogStore s = new LogStore();
+            apply(older.file(), s);
+            apply(next.file(), s);
+            merged = toMap(s);
+        } else {
+            merged = new TreeMap<>();
+            read(older.file(), merged::put);
+            read(next.file(), merged::put);
+        }
+        Path file = write(next.seq(), older.base(), next.time(), merged);
+        if (!file.equals(next.file())) Files.delete(next.file());
+        Files.delete(older.file());
+        return new Point(next.seq(), older.base(), next.time(), file, Files.size(file));
+    }
+
+    // ---------- Files ----------
+    private Path write(long seq, boolean base, LocalDateTime time, SortedMap<Long, Integer> entries) throws IOException {
+        Path file = dir.resolve(String.format("%08d-%s-%s.qtb", seq, base ? "B" : "D", time.format(NAME_FMT)));
+        Path tmp = dir.resolve(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(entries.size());
+            long prev = 0;
+            for (Map.Entry<Long, Integer> e : entries.entrySet()) {
+                writeVarLong(out, e.getKey() - prev); // days ascend, so gaps are small and positive (the first may be negative)
+                writeVarLong(out, e.getValue());
+                prev = e.getKey();
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return file;
+    }
+
+    private static void read(Path file, LogStore.DayVisitor v) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a QuitTrack backup: " + file.getFileName());
+            int n = in.readInt();
+            long day = 0;
+            for (int i = 0; i < n; i++) {
+                day += readVarLong(in);
+                v.visit(day, (int) readVarLong(in));
+            }
+        }
+    }
+
+    /** Applies a base or delta file on top of {@code into}. */
+    private static void apply(Path file, LogStore into) throws IOException {
+        read(file, (day, count) -> {
+            if (count == REMOVED) into.remove(day);
+            else into.put(day, count);
+        });
+    }
+
+    private static TreeMap<Long, Integer> toMap(LogStore s) {
+        TreeMap<Long, Integer> m = new TreeMap<>();
+        s.forEach(m::put);
+        return m;
+    }
+
+    private static int indexOf(List<Point> all, long seq) throws IOException {
+        for (int i = 0; i < all.size(); i++) if (all.get(i).seq() == seq) return i;
+        throw new IOException("Backup " + seq + " no longer exists");
+    }
+
+    /** Zig-zag varint: small magnitudes of either sign take one byte. */
+    private static void writeVarLong(DataOutput out, long v) throws IOException {
+        long z = (v << 1) ^ (v >> 63);
+        while ((z & ~0x7FL) != 0) {
+            out.writeByte((int) ((z & 0x7F) | 0x80));
+            z >>>= 7;
+        }
+        out.writeByte((int) z);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long z = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            z |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+            if (shift > 63) throw new IOException("Corrupt backup");
+        }
+        return (z >>> 1) ^ -(z & 1);
+    }
+}
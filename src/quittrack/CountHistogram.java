@@ -0,0 +1,111 @@
+package quittrack;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.TreeMap;
+
+/**
+ * How many logged days had each cigarette count, over the whole log and per calendar year.
+ * Counts are small (0–200 through the UI), so the cigarettes avoided against any baseline is a
+ * walk over at most {@code baseline} buckets, however long the history: what lets the
+ * what-if view recompute on every slider tick, and quantiles of the daily count exact in as
+ * many steps. A put moves one day between two buckets.
+ */
+public class CountHistogram {
+    private final LogStore store;
+    private int[] total = new int[201];
+    private long logged;
+    private final TreeMap<Integer, int[]> years = new TreeMap<>();
+
+    public CountHistogram(LogStore store) {
+        this.store = store;
+    }
+
+    /** Applies a change the store already holds; -1 means "no entry" as in {@link LogStore#put}. */
+    public void update(long day, int prev, int now) {
+        if (prev == now) return;
+        int year = LocalDate.ofEpochDay(day).getYear();
+        if (prev >= 0) {
+            logged--;
+            total[prev]--;
+            years.get(year)[prev]--;
+        }
+        if (now >= 0) {
+            logged++;
+            total = add(total, now);
+            years.put(year, add(years.computeIfAbsent(year, y -> new int[total.length]), now));
+        }
+    }
+
+    /** Re-reads the whole store. O(days). */
+    public void rebuild() {
+        total = new int[201];
+        logged = store.size();
+        years.clear();
+        int[] year = {0};
+        long[] yearEnd = {Long.MIN_VALUE};
+        store.forEach((day, count) -> {
+            if (day > yearEnd[0]) { // days come in order, so each year is resolved once
+                year[0] = LocalDate.ofEpochDay(day).getYear();
+                yearEnd[0] = LocalDate.of(year[0], 12, 31).toEpochDay();
+            }
+            total = add(total, count);
+            years.put(year[0], add(years.computeIfAbsent(year[0], y -> new int[201]), count));
+        });
+    }
+
+    /** Logged days with exactly {@code count} cigarettes. */
+    public int days(int count) {
+        return count >= 0 && count < total.length ? total[count] : 0;
+    }
+
+    /** Logged days in all. */
+    public long days() {
+        return logged;
+    }
+
+    /**
+     * The smallest count that at least a {@code q} share of logged days do not exceed (0.5 is
+     * the median), or -1 with nothing logged.
+     */
+    public int quantile(double q) {
+        if (logged == 0) return -1;
+        long need = Math.max(1, (long) Math.ceil(q * logged));
+        long seen = 0;
+        for (int c = 0; c < total.length; c++) {
+            seen += total[c];
+            if (seen >= need) return c;
+        }
+        return total.length - 1;
+    }
+
+    /** Highest daily count, or -1 with nothing logged. */
+    public int max() {
+        for (int c = total.length - 1; c >= 0; c--) if (total[c] > 0) return c;
+        return -1;
+    }
+
+    /** Cigarettes avoided over every logged day against {@code baseline}. O(baseline). */
+    public long avoided(int baseline) {
+        return avoided(total, baseline);
+    }
+
+    /** Cigarettes avoided over the logged days of {@code year} against {@code baseline}. */
+    public long avoided(int year, int baseline) {
+        int[] h = years.get(year);
+        return h == null ? 0 : avoided(h, baseline);
+    }
+
+    private static long avoided(int[] h, int baseline) {
+        long s = 0;
+        for (int c = 0, end = Math.min(baseline, h.length); c < end; c++) s += (long) h[c] * (baseline - c);
+        return s;
+    }
+
+    /** Counts {@code count} in {@code h}, growing it for counts past its end. */
+    private static int[] add(int[] h, int count) {
+        if (count >= h.length) h = Arrays.copyOf(h, Math.max(count + 1, h.length * 2));
+        h[count]++;
+        return h;
+    }
+}
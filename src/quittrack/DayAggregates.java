@@ -0,0 +1,154 @@
+package quittrack;
+
+/**
+ * Fenwick trees over a {@link LogStore} answering range totals in O(log n):
+ * cigarettes smoked, number of logged days, and cigarettes avoided against the baseline in
+ * effect that day ({@code max(0, baseline - count)} per logged day, see {@link PriceHistory}).
+ * Kept in step with the store through {@link #update}; point updates are O(log n) too.
+ */
+public class DayAggregates {
+    private final LogStore store;
+    private final PriceHistory prices;
+
+    private long base;            // epoch day of index 1
+    private int n;
+    private long[] cigs = new long[1];
+    private int[] logged = new int[1];
+    private long[] avoided = new long[1];
+
+    public DayAggregates(LogStore store, PriceHistory prices) {
+        this.store = store;
+        this.prices = prices;
+    }
+
+    /**
+     * Applies a baseline change over {@code [from, to]} that {@link #prices} already holds; only
+     * the logged days in that range are touched, O(k log n) for k of them.
+     */
+    public void baselineChanged(long from, long to, int oldBaseline, int newBaseline) {
+        if (oldBaseline == newBaseline || n == 0) return;
+        store.forEachInRange(Math.max(from, base), Math.min(to, base + n - 1), (day, count) -> {
+            long da = Math.max(0, newBaseline - count) - Math.max(0, oldBaseline - count);
+            for (int i = (int) (day - base) + 1; i <= n; i += i & -i) avoided[i] += da;
+        });
+    }
+
+    /**
+     * Applies a change the store already holds. {@code prev}/{@code now} are -1 for "no entry",
+     * matching the return values of {@link LogStore#put} and {@link LogStore#remove}.
+     */
+    public void update(long day, int prev, int now) {
+        if (day < base || day >= base + n) {
+            rebuild();
+            return;
+        }
+        int i = (int) (day - base) + 1;
+        long dc = Math.max(now, 0) - Math.max(prev, 0);
+        int dl = (now >= 0 ? 1 : 0) - (prev >= 0 ? 1 : 0);
+        int baseline = prices.at(day).baselinePerDay();
+        long da = avoidedOf(baseline, now) - avoidedOf(baseline, prev);
+        for (; i <= n; i += i & -i) {
+            cigs[i] += dc;
+            logged[i] += dl;
+            avoided[i] += da;
+        }
+    }
+
+    /** Re-reads the whole store. O(n) using the linear Fenwick build. */
+    public void rebuild() {
+        long first = store.firstDay();
+        if (first == LogStore.NONE) {
+            n = 0;
+            cigs = new long[1];
+            logged = new int[1];
+            avoided = new long[1];
+            return;
+        }
+        long last = store.lastDay();
+        // Headroom on both sides so the next few days logged around the edges do not rebuild.
+        base = first - 366;
+        long size = last - base + 1 + 366;
+        if (size > Integer.MAX_VALUE - 1) throw new IllegalStateException("History too long to index");
+        n = (int) size;
+        cigs = new long[n + 1];
+        logged = new int[n + 1];
+        avoided = new long[n + 1];
+        prices.forEach(first, last, (from, to, s) -> store.forEachInRange(from, to, (day, count) -> {
+            int i = (int) (day - base) + 1;
+            cigs[i] = count;
+            logged[i] = 1;
+            avoided[i] = avoidedOf(s.baselinePerDay(), count);
+        }));
+        for (int i = 1; i <= n; i++) {
+            int j = i + (i & -i);
+            if (j <= n) {
+                cigs[j] += cigs[i];
+                logged[j] += logged[i];
+                avoided[j] += avoided[i];
+            }
+        }
+    }
+
+    /** Cigarettes smoked over {@code [from, to]}. */
+    public long cigs(long from, long to) {
+        return rangeSum(cigs, from, to);
+    }
+
+    /** Number of days with an entry in {@code [from, to]}. */
+    public long loggedDays(long from, long to) {
+        return rangeSum(logged, from, to);
+    }
+
+    /** Cigarettes avoided over the logged days in {@code [from, to]}. */
+    public long avoided(long from, long to) {
+        return rangeSum(avoided, from, to);
+    }
+
+    public long avoidedTotal() {
+        return prefix(avoided, n);
+    }
+
+    /**
+     * Cigarettes avoided over every day in {@code [from, to]}, counting a day with no entry
+     * as a full baseline day saved (what the charts and calendar show). The range must lie
+     * within one price segment; see {@link LogModel#moneySaved}.
+     */
+    public long avoidedAllDays(long from, long to, int baseline) {
+        if (to < from) return 0;
+        long unlogged = (to - from + 1) - loggedDays(from, to);
+        return unlogged * baseline + avoided(from, to);
+    }
+
+    private static long avoidedOf(int baseline, int count) {
+        return count < 0 ? 0 : Math.max(0, baseline - count);
+    }
+
+    private long rangeSum(long[] t, long from, long to) {
+        int hi = clamp(to);
+        int lo = clamp(from - 1);
+        return hi <= lo ? 0 : prefix(t, hi) - prefix(t, lo);
+    }
+
+    private long rangeSum(int[] t, long from, long to) {
+        int hi = clamp(to);
+        int lo = clamp(from - 1);
+        if (hi <= lo) return 0;
+        long s = 0;
+        for (int i = hi; i > 0; i -= i & -i) s += t[i];
+        for (int i = lo; i > 0; i -= i & -i) s -= t[i];
+        return s;
+    }
+
+    /** Maps a day to a 1-based Fenwick position, clamped to [0, n]. */
+    private int clamp(long day) {
+        if (day < base) return 0;
+        long i = day - base + 1;
+        return i > n ? n : (int) i;
+    }
+
+    private static long prefix(long[] t, int i) {
+        long s = 0;
+        for (; i > 0; i -= i & -i) s += t[i];
+        return s;
+    }
+}
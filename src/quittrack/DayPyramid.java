@@ -0,0 +1,104 @@
+package quittrack;
+
+import java.util.function.LongToIntFunction;
+
+/**
+ * Multi-resolution summary of daily counts for plotting long histories: level {@code k} holds
+ * one bucket per {@code 2^k} days with the min, max and sum over its logged days. A plot picks
+ * the level whose buckets fit its pixel width, so the points it draws are bounded by the width
+ * whatever the range. A point update touches one bucket per level.
+ */
+public class DayPyramid {
+    private static final int NO_MIN = Integer.MAX_VALUE;
+
+    private long base = LogStore.NONE;   // epoch day of bucket 0 on every level
+    private int n;                       // days on level 0
+    private int[][] min = new int[0][];
+    private int[][] max = new int[0][];
+    private int[][] logged = new int[0][];
+    private long[][] sum = new long[0][];
+
+    public long firstDay() { return base; }
+    /** Last day covered, or {@link LogStore#NONE} when empty. */
+    public long lastDay() { return base == LogStore.NONE ? LogStore.NONE : base + n - 1; }
+    public int levels() { return min.length; }
+    public int bucketCount(int level) { return min[level].length; }
+    public static long bucketDays(int level) { return 1L << level; }
+    public long bucketStart(int level, int i) { return base + ((long) i << level); }
+
+    public int min(int level, int i) { return min[level][i]; }
+    public int max(int level, int i) { return max[level][i]; }
+    public long sum(int level, int i) { return sum[level][i]; }
+    public int logged(int level, int i) { return logged[level][i]; }
+
+    /**
+     * Rebuilds over {@code [firstDay, lastDay]}; {@code count} returns a day's count, or -1 for
+     * a day without entry. O(days).
+     */
+    public void rebuild(long firstDay, long lastDay, LongToIntFunction count) {
+        if (firstDay == LogStore.NONE || lastDay < firstDay) {
+            base = LogStore.NONE;
+            n = 0;
+            min = max = logged = new int[0][];
+            sum = new long[0][];
+            return;
+        }
+        base = firstDay;
+        n = (int) (lastDay - firstDay + 1);
+        int levels = 1;
+        while ((long) 1 << (levels - 1) < n) levels++;
+        min = new int[levels][];
+        max = new int[levels][];
+        logged = new int[levels][];
+        sum = new long[levels][];
+        for (int k = 0; k < levels; k++) {
+            int size = (int) ((n + (1L << k) - 1) >>> k);
+            min[k] = new int[size];
+            max[k] = new int[size];
+            logged[k] = new int[size];
+            sum[k] = new long[size];
+        }
+        for (int i = 0; i < n; i++) setLeaf(i, count.applyAsInt(base + i));
+        for (int k = 1; k < levels; k++) {
+            for (int i = 0; i < min[k].length; i++) combine(k, i);
+        }
+    }
+
+    /** Applies one day's new count (-1 = no entry); false when the day is outside the pyramid. */
+    public boolean update(long day, int count) {
+        if (base == LogStore.NONE || day < base || day >= base + n) return false;
+        int i = (int) (day - base);
+        setLeaf(i, count);
+        for (int k = 1; k < min.length; k++) {
+            i >>>= 1;
+            combine(k, i);
+        }
+        return true;
+    }
+
+    /** The finest level that covers {@code days} days in at most about {@code maxBuckets} buckets. */
+    public int levelFor(long days, int maxBuckets) {
+        int k = 0;
+        while (k < min.length - 1 && (days >>> k) > maxBuckets) k++;
+        return k;
+    }
+
+    private void setLeaf(int i, int count) {
+        boolean has = count >= 0;
+        min[0][i] = has ? count : NO_MIN;
+        max[0][i] = has ? count : -1;
+        logged[0][i] = has ? 1 : 0;
+        sum[0][i] = has ? count : 0;
+    }
+
+    private void combine(int k, int i) {
+        int a = 2 * i, b = a + 1;
+        int[] mn = min[k - 1], mx = max[k - 1], lg = logged[k - 1];
+        long[] sm = sum[k - 1];
+        boolean hasB = b < mn.length;
+        min[k][i] = hasB ? Math.min(mn[a], mn[b]) : mn[a];
+        max[k][i] = hasB ? Math.max(mx[a], mx[b]) : mx[a];
+        logged[k][i] = lg[a] + (hasB ? lg[b] : 0);
+        sum[k][i] = sm[a] + (hasB ? sm[b] : 0);
+    }
+}
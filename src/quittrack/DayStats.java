@@ -0,0 +1,96 @@
+package quittrack;
+
+import java.time.DayOfWeek;
+import java.util.Arrays;
+
+/**
+ * Running sums over logged days, from which the Insights tab derives mean, spread, a
+ * day-of-week profile and a least-squares trend. Every field is a plain sum, so a day is added
+ * or taken back in O(1) and two summaries (say, of two imported logs) {@link #merge} by adding.
+ * The sums are exact integers; x is the epoch day, y the day's count.
+ */
+public class DayStats {
+    /** Fitted {@code count = intercept + slope * epochDay}. */
+    public record Trend(double slope, double intercept) {
+        /** First day the line reaches zero, or {@link LogStore#NONE} when it is not falling. */
+        public long zeroDay() {
+            if (slope >= 0) return LogStore.NONE;
+            return (long) Math.ceil(-intercept / slope);
+        }
+    }
+
+    private long n, sumX, sumY, sumXX, sumXY, sumYY;
+    private final long[] dowSum = new long[7];   // Monday first
+    private final int[] dowDays = new int[7];
+
+    /** Applies a change the store already holds; -1 means "no entry" as in {@link LogStore#put}. */
+    public void update(long day, int prev, int now) {
+        if (prev >= 0) add(day, prev, -1);
+        if (now >= 0) add(day, now, 1);
+    }
+
+    public void rebuild(LogStore store) {
+        clear();
+        store.forEach((day, count) -> add(day, count, 1));
+    }
+
+    public void clear() {
+        n = sumX = sumY = sumXX = sumXY = sumYY = 0;
+        Arrays.fill(dowSum, 0);
+        Arrays.fill(dowDays, 0);
+    }
+
+    /** Adds {@code o}'s days to these. */
+    public void merge(DayStats o) {
+        n += o.n;
+        sumX += o.sumX;
+        sumY += o.sumY;
+        sumXX += o.sumXX;
+        sumXY += o.sumXY;
+        sumYY += o.sumYY;
+        for (int i = 0; i < 7; i++) {
+            dowSum[i] += o.dowSum[i];
+            dowDays[i] += o.dowDays[i];
+        }
+    }
+
+    private void add(long day, int count, int sign) {
+        n += sign;
+        sumX += sign * day;
+        sumY += sign * count;
+        sumXX += sign * day * day;
+        sumXY += sign * day * count;
+        sumYY += sign * (long) count * count;
+        int dow = (int) Math.floorMod(day + 3, 7L); // epoch day 0 was a Thursday
+        dowSum[dow] += sign * count;
+        dowDays[dow] += sign;
+    }
+
+    public long days() { return n; }
+
+    public double mean() {
+        return n == 0 ? 0 : (double) sumY / n;
+    }
+
+    public double stdDev() {
+        if (n < 2) return 0;
+        double mean = mean();
+        return Math.sqrt(Math.max(0, ((double) sumYY - n * mean * mean) / (n - 1)));
+    }
+
+    /** Mean count on the logged {@code dow}s. */
+    public double mean(DayOfWeek dow) {
+        int i = dow.getValue() - 1;
+        return dowDays[i] == 0 ? 0 : (double) dowSum[i] / dowDays[i];
+    }
+
+    /** Least-squares line through the logged days, or null with fewer than two distinct days. */
+    public Trend trend() {
+        if (n < 2) return null;
+        double sxx = sumXX - (double) sumX * sumX / n; // centered from the exact raw sums
+        if (sxx <= 0) return null;
+        double sxy = sumXY - (double) sumX * sumY / n;
+        double slope = sxy / sxx;
+        return new Trend(slope, ((double) sumY - slope * sumX) / n);
+    }
+}
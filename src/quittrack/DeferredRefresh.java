@@ -0,0 +1,73 @@
+package quittrack;
+
+import javax.swing.*;
+import java.awt.event.HierarchyEvent;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Ties one tab to the {@link LogModel}: events are folded into a dirty day range plus a set of
+ * changed settings, and the tab recomputes once, the next time it is showing. A tab that is on
+ * screen when the event arrives refreshes right away.
+ */
+public class DeferredRefresh implements LogModel.Listener {
+    public interface Target {
+        /**
+         * Recompute what depends on {@code [fromDay, toDay]} (both {@link LogStore#NONE} when no
+         * day changed) and on the given settings fields (only those the tab asked for).
+         */
+        void refresh(long fromDay, long toDay, Set<String> settings);
+    }
+
+    private final JComponent tab;
+    private final Set<String> watchedSettings;
+    private final Target target;
+    private long dirtyFrom = LogStore.NONE, dirtyTo = LogStore.NONE;
+    private final Set<String> dirtySettings = new LinkedHashSet<>();
+
+    public DeferredRefresh(JComponent tab, Set<String> watchedSettings, Target target) {
+        this.tab = tab;
+        this.watchedSettings = watchedSettings;
+        this.target = target;
+        tab.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && tab.isShowing()) flush();
+        });
+    }
+
+    @Override public void dayChanged(long epochDay, int prev, int now) { markDays(epochDay, epochDay); }
+    @Override public void rangeCleared(long fromDay, long toDay) { markDays(fromDay, toDay); }
+    @Override public void rangeChanged(long fromDay, long toDay) { markDays(fromDay, toDay); }
+    @Override public void pricesChanged(long fromDay, long toDay) { markDays(fromDay, toDay); }
+
+    @Override
+    public void settingsChanged(Set<String> fields) {
+        boolean any = false;
+        for (String f : fields) if (watchedSettings.contains(f)) any |= dirtySettings.add(f);
+        if (any) flushIfShowing();
+    }
+
+    private void markDays(long from, long to) {
+        if (dirtyFrom == LogStore.NONE) {
+            dirtyFrom = from;
+            dirtyTo = to;
+        } else {
+            dirtyFrom = Math.min(dirtyFrom, from);
+            dirtyTo = Math.max(dirtyTo, to);
+        }
+        flushIfShowing();
+    }
+
+    private void flushIfShowing() {
+        if (tab.isShowing()) flush();
+    }
+
+    private void flush() {
+        if (dirtyFrom == LogStore.NONE && dirtySettings.isEmpty()) return;
+        long from = dirtyFrom, to = dirtyTo;
+        Set<String> fields = dirtySettings.isEmpty() ? Collections.emptySet() : Set.copyOf(dirtySettings);
+        dirtyFrom = dirtyTo = LogStore.NONE;
+        dirtySettings.clear();
+        target.refresh(from, to, fields);
+    }
+}
@@ -0,0 +1,123 @@
+package quittrack;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.HierarchyEvent;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The hidden Diagnostics tab: EDT latencies per event type and named action, and the most
+ * recent hangs with the stack the watchdog captured. Refreshes once a second while showing.
+ */
+public class DiagnosticsPanel extends JPanel {
+    private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private final StatsModel stats = new StatsModel();
+    private final DefaultListModel<EdtMonitor.Hang> hangs = new DefaultListModel<>();
+    private final JList<EdtMonitor.Hang> hangList = new JList<>(hangs);
+    private final JTextArea stack = new JTextArea();
+    private final Timer refresh = new Timer(1000, e -> reload());
+
+    public DiagnosticsPanel() {
+        super(new BorderLayout(8, 8));
+        setBorder(new EmptyBorder(12, 12, 12, 12));
+
+        JTable table = new JTable(stats);
+        table.setAutoCreateRowSorter(true);
+        table.setFillsViewportHeight(true);
+
+        hangList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean sel, boolean focus) {
+                EdtMonitor.Hang h = (EdtMonitor.Hang) value;
+                return super.getListCellRendererComponent(list, h.at.format(TIME_FMT) + "  " + h.millis() + " ms  " + h.event, index, sel, focus);
+            }
+        });
+        hangList.addListSelectionListener(e -> showStack(hangList.getSelectedValue()));
+        stack.setEditable(false);
+        stack.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        JSplitPane hangSplit = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, new JScrollPane(hangList), new JScrollPane(stack));
+        hangSplit.setResizeWeight(0.35);
+        JPanel hangPanel = new JPanel(new BorderLayout());
+        hangPanel.add(new JLabel("Recent hangs (> " + EdtMonitor.HANG_MILLIS + " ms)"), BorderLayout.NORTH);
+        hangPanel.add(hangSplit, BorderLayout.CENTER);
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(table), hangPanel);
+        split.setResizeWeight(0.6);
+        add(split, BorderLayout.CENTER);
+
+        JButton reset = new JButton("Reset");
+        reset.addActionListener(e -> {
+            EdtMonitor.reset();
+            reload();
+        });
+        JPanel bottom = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        bottom.add(reset);
+        add(bottom, BorderLayout.SOUTH);
+
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) == 0) return;
+            if (isShowing()) {
+                reload();
+                refresh.start();
+            } else {
+                refresh.stop();
+            }
+        });
+    }
+
+    private void reload() {
+        stats.reload();
+        EdtMonitor.Hang selected = hangList.getSelectedValue();
+        List<EdtMonitor.Hang> recent = EdtMonitor.recentHangs();
+        if (recent.size() != hangs.size() || (!recent.isEmpty() && recent.get(0) != hangs.get(0))) {
+            hangs.clear();
+            for (EdtMonitor.Hang h : recent) hangs.addElement(h);
+            if (selected != null) hangList.setSelectedValue(selected, false);
+        }
+        hangList.repaint(); // durations of a hang still in progress
+    }
+
+    private void showStack(EdtMonitor.Hang h) {
+        if (h == null) { stack.setText(""); return; }
+        StringBuilder sb = new StringBuilder(h.event).append('\n');
+        for (StackTraceElement e : h.stack) sb.append("    at ").append(e).append('\n');
+        stack.setText(sb.toString());
+        stack.setCaretPosition(0);
+    }
+
+    private static final class StatsModel extends AbstractTableModel {
+        private static final String[] COLS = {"Event / action", "Count", "p50 ms", "p99 ms", "Max ms"};
+        private final List<String> names = new ArrayList<>();
+        private final List<long[]> rows = new ArrayList<>(); // count, p50, p99, max (nanos)
+
+        void reload() {
+            names.clear();
+            rows.clear();
+            for (Map.Entry<String, LatencyHistogram> e : EdtMonitor.histograms().entrySet()) {
+                LatencyHistogram h = e.getValue();
+                if (h.count() == 0) continue;
+                names.add(e.getKey());
+                rows.add(new long[]{h.count(), h.percentileNanos(0.50), h.percentileNanos(0.99), h.maxNanos()});
+            }
+            fireTableDataChanged();
+        }
+
+        @Override public int getRowCount() { return names.size(); }
+        @Override public int getColumnCount() { return COLS.length; }
+        @Override public String getColumnName(int c) { return COLS[c]; }
+        @Override public Class<?> getColumnClass(int c) { return c == 0 ? String.class : c == 1 ? Long.class : Double.class; }
+
+        @Override public Object getValueAt(int r, int c) {
+            if (c == 0) return names.get(r);
+            long v = rows.get(r)[c - 1];
+            return c == 1 ? (Object) v : Double.valueOf(String.format(Locale.US, "%.2f", v / 1e6));
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package quittrack;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Picks up what another process (a second window, a sync tool) changes in {@code ~/.quittrack}
+ * and applies it to the model as the same fine-grained updates a local edit makes. The journal
+ * and event file are read on from where this process stopped, so a change costs its own bytes
+ * however long the history; only a file rewritten elsewhere is compared in full.
+ * <p>
+ * A day, the settings or the prices with a local change not yet saved keep the local value: it
+ * is written after the other one, so it wins on disk too. Those are reported as conflicts.
+ * File events are collected on the "quittrack-watch" thread and coalesced for a moment, since
+ * one save touches several files.
+ */
+public class DiskWatcher implements Closeable {
+    public interface Listener {
+        /**
+         * Runs {@code changes} where the model lives (the EDT) without queuing writes for them,
+         * as they are on disk already. They return a line for the status bar, or null.
+         */
+        void apply(Callable<String> changes);
+        /** Called on the watch thread. */
+        void failed(String message);
+    }
+
+    private static final Logger LOG = Logger.getLogger(DiskWatcher.class.getName());
+    private static final long SETTLE_MILLIS = 150;
+    private static final int BULK_DAYS = 256;     // more differing days than this are applied as one replace
+
+    private final Path dir;
+    private final LogModel model;
+    private final LogJournal journal;
+    private final EventFile events;
+    private final Path settingsFile;
+    private final Path pricesFile;
+    private final PersistenceQueue queue;
+    private final Listener listener;
+    private final WatchService watcher;
+    private final Thread thread;
+
+    /** {@code journal} and {@code events} may be null when their file could not be opened. */
+    public DiskWatcher(Path dir, LogModel model, LogJournal journal, EventFile events, Path settingsFile, Path pricesFile,
+                       PersistenceQueue queue, Listener listener) throws IOException {
+        this.dir = dir;
+        this.model = model;
+        this.journal = journal;
+        this.events = events;
+        this.settingsFile = settingsFile;
+        this.pricesFile = pricesFile;
+        this.queue = queue;
+        this.listener = listener;
+        watcher = dir.getFileSystem().newWatchService();
+        dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        thread = new Thread(this::run, "quittrack-watch");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        watcher.close();
+        thread.interrupt();
+    }
+
+    private void run() {
+        try {
+            for (;;) {
+                Set<Path> changed = new HashSet<>();
+                collect(watcher.take(), changed);
+                WatchKey key;
+                while ((key = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) collect(key, changed);
+                sync(changed);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> into) {
+        for (WatchEvent<?> e : key.pollEvents()) {
+            if (e.kind() == StandardWatchEventKinds.OVERFLOW) { // lost track: look at everything
+                if (journal != null) into.add(journal.path());
+                if (events != null) into.add(events.path());
+                into.add(pricesFile);
+                into.add(settingsFile);
+            } else {
+                into.add(dir.resolve((Path) e.context()));
+            }
+        }
+        key.reset();
+    }
+
+    private void sync(Set<Path> changed) {
+        try {
+            if (journal != null && (changed.contains(journal.path()) || changed.contains(journal.dataPath()))) syncLogs();
+            if (events != null && changed.contains(events.path())) syncEvents();
+            if (changed.contains(pricesFile)) syncPrices(); // before the settings, which mirror today's price
+            if (changed.contains(settingsFile)) syncSettings();
+        } catch (IOException | RuntimeException e) {
+            LOG.log(Level.WARNING, "Reading changes made elsewhere failed", e);
+            listener.failed(e.getMessage());
+        }
+    }
+
+    // ---------- Logs ----------
+    private void syncLogs() throws IOException {
+        LogJournal.Tail tail = journal.readTail();
+        if (tail == null) { // rewritten elsewhere
+            LogStore disk = new LogStore();
+            journal.readDisk(disk);
+            listener.apply(() -> applyDisk(disk));
+        } else if (!tail.isEmpty()) {
+            listener.apply(() -> applyTail(tail));
+        }
+    }
+
+    private String applyTail(LogJournal.Tail tail) throws IOException {
+        Map<Long, Integer> latest = new LinkedHashMap<>();
+        for (LogJournal.Mutation m : tail.mutations()) latest.put(m.epochDay(), m.count());
+        int applied = 0, kept = tail.superseded();
+        for (Map.Entry<Long, Integer> e : latest.entrySet()) {
+            long day = e.getKey();
+            int count = e.getValue();
+            if (queue.isPending(day)) { // a local change not yet saved
+                kept++;
+                continue;
+            }
+            int disk = journal.onDisk(day);
+            if (disk != count) { // written again since: by this process (kept) or another (in the next tail)
+                if (disk == current(day)) kept++;
+                continue;
+            }
+            if (count < 0) model.remove(day);
+            else model.put(day, count);
+            applied++;
+        }
+        return report(applied, kept);
+    }
+
+    private String applyDisk(LogStore disk) {
+        LogStore mem = model.store();
+        List<Long> differing = new ArrayList<>();
+        mem.forEach((day, count) -> {
+            if (!disk.contains(day) || disk.get(day) != count) differing.add(day);
+        });
+        disk.forEach((day, count) -> {
+            if (!mem.contains(day)) differing.add(day);
+        });
+        int kept = 0;
+        List<Long> apply = new ArrayList<>();
+        for (long day : differing) {
+            if (queue.isPending(day)) kept++;
+            else apply.add(day);
+        }
+        if (apply.size() > BULK_DAYS) {
+            LogStore merged = disk.copy();
+            for (long day : differing) {
+                if (!queue.isPending(day)) continue;
+                if (mem.contains(day)) merged.put(day, mem.get(day));
+                else merged.remove(day);
+            }
+            model.replaceAll(merged);
+        } else {
+            for (long day : apply) {
+                if (disk.contains(day)) model.put(day, disk.get(day));
+                else model.remove(day);
+            }
+        }
+        return report(apply.size(), kept);
+    }
+
+    private int current(long day) {
+        return model.store().contains(day) ? model.get(day) : -1;
+    }
+
+    private static String report(int applied, int kept) {
+        if (applied == 0 && kept == 0) return null;
+        String s = "Changed elsewhere: " + days(applied);
+        return kept == 0 ? s : s + "; kept this window's value for " + days(kept);
+    }
+
+    private static String days(int n) {
+        return n == 1 ? "1 day" : n + " days";
+    }
+
+    // ---------- Events ----------
+    private void syncEvents() throws IOException {
+        List<EventFile.Change> tail = events.readTail();
+        if (tail == null) { // rewritten elsewhere
+            EventStore loaded = new EventStore(ZoneId.systemDefault());
+            events.load(loaded);
+            listener.apply(() -> {
+                model.replaceEvents(loaded);
+                return null;
+            });
+        } else if (!tail.isEmpty()) {
+            listener.apply(() -> {
+                for (EventFile.Change c : tail) model.applyEvent(c.epochSecond(), c.removed());
+                return null; // their days come through the journal
+            });
+        }
+    }
+
+    // ---------- Settings and prices ----------
+    private void syncSettings() throws IOException {
+        if (!Files.exists(settingsFile)) return;
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(settingsFile)) {
+            props.load(in);
+        }
+        Settings read = Settings.fromProperties(props);
+        listener.apply(() -> {
+            if (read.diff(model.settings()).isEmpty()) return null; // this process's own save
+            if (queue.isSettingsPending()) return "Settings were changed elsewhere too; kept this window's";
+            model.updateSettings(read);
+            return "Settings changed elsewhere";
+        });
+    }
+
+    private void syncPrices() throws IOException {
+        if (!Files.exists(pricesFile)) return;
+        PriceHistory read = PriceHistory.read(pricesFile);
+        listener.apply(() -> {
+            PriceHistory prices = model.prices();
+            if (prices.segments().equals(read.segments())) return null; // this process's own save
+            if (queue.isPricesPending()) return "Prices were changed elsewhere too; kept this window's";
+            for (PriceHistory.Segment s : prices.segments()) {
+                if (s.fromDay() != PriceHistory.BEGINNING && read.at(s.fromDay()).fromDay() != s.fromDay()) model.removePrice(s.fromDay());
+            }
+            for (PriceHistory.Segment s : read.segments()) model.setPrice(s);
+            return "Prices changed elsewhere";
+        });
+    }
+}
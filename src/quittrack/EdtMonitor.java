@@ -0,0 +1,182 @@
+package quittrack;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.InvocationEvent;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Times everything the event dispatch thread does. {@link #install()} pushes an
+ * {@link EventQueue} that records each dispatched event into a histogram per event type, and
+ * {@link #time} times named user actions (save, tab switch, …). A watchdog thread captures
+ * the EDT's stack when one dispatch runs longer than {@link #HANG_MILLIS}; the newest hangs
+ * are kept for the Diagnostics tab.
+ * <p>
+ * An event that runs a modal dialog pumps further events from inside its own dispatch; such
+ * events are recorded under "modal" rather than skewing their type's latencies, and the
+ * watchdog sees the nested events as progress.
+ */
+public final class EdtMonitor {
+    private static final Logger LOG = Logger.getLogger(EdtMonitor.class.getName());
+
+    public static final long HANG_MILLIS = 500;
+    private static final int KEPT_HANGS = 20;
+
+    /** One stall of the EDT; {@code millis} is the stall seen so far, final once the dispatch returns. */
+    public static final class Hang {
+        public final LocalTime at;
+        public final String event;
+        public final StackTraceElement[] stack;
+        volatile long millis;
+
+        Hang(LocalTime at, String event, StackTraceElement[] stack, long millis) {
+            this.at = at;
+            this.event = event;
+            this.stack = stack;
+            this.millis = millis;
+        }
+
+        public long millis() { return millis; }
+    }
+
+    private static final Map<String, LatencyHistogram> events = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> actions = new ConcurrentHashMap<>();
+    private static final ArrayDeque<Hang> hangs = new ArrayDeque<>(); // guarded by itself
+
+    // Written on the EDT, read by the watchdog.
+    private static volatile Thread edt;
+    private static volatile long progressNanos;  // last time a dispatch started or ended
+    private static volatile int depth;
+    private static volatile boolean waiting;     // inside getNextEvent: idle, not hung
+    private static volatile String current;
+    private static volatile Hang currentHang;
+    private static volatile int hangDepth;
+    private static boolean installed;
+
+    private EdtMonitor() {}
+
+    public static synchronized void install() {
+        if (installed) return;
+        installed = true;
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(new TimingQueue());
+        Thread watchdog = new Thread(EdtMonitor::watch, "quittrack-edt-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+    }
+
+    /** Runs {@code r} and records how long it took under the action {@code name}. */
+    public static void time(String name, Runnable r) {
+        long start = System.nanoTime();
+        try {
+            r.run();
+        } finally {
+            actions.computeIfAbsent(name, k -> new LatencyHistogram()).record(System.nanoTime() - start);
+        }
+    }
+
+    /** Event-type and action histograms by name ("event: …" / "action: …"), sorted. */
+    public static Map<String, LatencyHistogram> histograms() {
+        Map<String, LatencyHistogram> out = new TreeMap<>();
+        events.forEach((k, v) -> out.put("event: " + k, v));
+        actions.forEach((k, v) -> out.put("action: " + k, v));
+        return out;
+    }
+
+    /** Newest first. */
+    public static List<Hang> recentHangs() {
+        synchronized (hangs) {
+            return new ArrayList<>(hangs);
+        }
+    }
+
+    public static void reset() {
+        events.values().forEach(LatencyHistogram::reset);
+        actions.values().forEach(LatencyHistogram::reset);
+        synchronized (hangs) {
+            hangs.clear();
+        }
+    }
+
+    // ---------- Dispatch timing ----------
+    private static final class TimingQueue extends EventQueue {
+        private boolean nested; // set when a dispatch ran inside the current outer one
+
+        @Override
+        public AWTEvent getNextEvent() throws InterruptedException {
+            waiting = true;
+            try {
+                return super.getNextEvent();
+            } finally {
+                waiting = false;
+                progressNanos = System.nanoTime();
+            }
+        }
+
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            if (edt == null) edt = Thread.currentThread();
+            int d = ++depth;
+            if (d > 1) nested = true;
+            String outer = current;
+            current = describe(event);
+            long start = System.nanoTime();
+            progressNanos = start;
+            try {
+                super.dispatchEvent(event);
+            } finally {
+                long end = System.nanoTime();
+                progressNanos = end;
+                depth = d - 1;
+                boolean ranModal = d == 1 && nested;
+                if (d == 1) nested = false;
+                events.computeIfAbsent(ranModal ? "modal" : typeOf(event), k -> new LatencyHistogram()).record(end - start);
+                Hang h = currentHang;
+                if (h != null && d == hangDepth) {
+                    h.millis = (end - start) / 1_000_000;
+                    currentHang = null;
+                }
+                current = outer;
+            }
+        }
+    }
+
+    private static String typeOf(AWTEvent e) {
+        return e.getClass().getSimpleName();
+    }
+
+    private static String describe(AWTEvent e) {
+        if (e instanceof InvocationEvent) return "InvocationEvent";
+        return e.getClass().getSimpleName() + " on " + (e.getSource() == null ? "?" : e.getSource().getClass().getSimpleName());
+    }
+
+    // ---------- Watchdog ----------
+    private static void watch() {
+        while (true) {
+            try {
+                Thread.sleep(HANG_MILLIS / 5);
+            } catch (InterruptedException e) {
+                return;
+            }
+            Thread t = edt;
+            if (t == null || depth == 0 || waiting || currentHang != null) continue;
+            long stalled = (System.nanoTime() - progressNanos) / 1_000_000;
+            if (stalled < HANG_MILLIS) continue;
+            Hang h = new Hang(LocalTime.now().minusNanos(stalled * 1_000_000), current, t.getStackTrace(), stalled);
+            hangDepth = depth;
+            currentHang = h;
+            synchronized (hangs) {
+                hangs.addFirst(h);
+                if (hangs.size() > KEPT_HANGS) hangs.removeLast();
+            }
+            LOG.warning("EDT stalled " + stalled + "ms in " + h.event + (h.stack.length > 0 ? " at " + h.stack[0] : ""));
+        }
+    }
+}
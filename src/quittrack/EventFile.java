@@ -0,0 +1,296 @@
+package quittrack;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+/**
+ * Append-only file of cigarette events ({@code events.bin}).
+ * <pre>
+ *   header   magic "QTEV" (4) | version (4)
+ *   records  varint( zigzag(epochSecond - previous record's epochSecond) &lt;&lt; 1 | op ), op 1 = remove
+ * </pre>
+ * Recording an event appends one to three bytes. Removals are appended as records too; once
+ * they make up a good part of the file, {@link #load} rewrites it with just the live events.
+ * A torn record at the end (crash mid-append) is dropped on load.
+ * <p>
+ * Appends hold an OS lock on the file and first decode whatever another process appended,
+ * so every delta is taken from the record before it on disk; {@link #readTail} hands those
+ * records out.
+ */
+public class EventFile implements Closeable {
+    private static final Logger LOG = Logger.getLogger(EventFile.class.getName());
+
+    private static final int MAGIC = 0x51544556; // "QTEV"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int OP_REMOVE = 1;
+
+    /** An event another process recorded or removed. */
+    public record Change(long epochSecond, boolean removed) {}
+
+    private final Path path;
+    private final ByteBuffer record = ByteBuffer.allocate(20);
+    private FileChannel out;
+    private Object outKey;
+    private long prev;              // timestamp of the last record, the base for the next delta
+    private Object knownKey;        // the file prev and known refer to
+    private long known;             // bytes of it written or read by this instance
+    private List<Change> foreign = new ArrayList<>();
+    private boolean foreignReset;   // replaced or removed by another process since the last readTail
+    private long bytesWritten;
+
+    public EventFile(Path path) {
+        this.path = path;
+    }
+
+    public Path path() { return path; }
+
+    /** Bytes appended or rewritten since this file was opened. */
+    public synchronized long bytesWritten() { return bytesWritten; }
+
+    /** Clears {@code into} and replays the file into it; returns the bytes read. */
+    public synchronized long load(EventStore into) throws IOException {
+        into.clear();
+        closeChannel();
+        prev = 0;
+        known = 0;
+        knownKey = fileKey(path);
+        foreign.clear();
+        foreignReset = false;
+        if (knownKey == null) return 0;
+        byte[] bytes = Files.readAllBytes(path);
+        if (bytes.length < HEADER_SIZE) throw new IOException(path.getFileName() + " is truncated");
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        if (buf.getInt() != MAGIC) throw new IOException(path.getFileName() + " is not a QuitTrack event file");
+        if (buf.getInt() != VERSION) throw new IOException("Unsupported event file version " + buf.getInt(4));
+
+        long t = 0;
+        int records = 0, removes = 0, end = HEADER_SIZE;
+        int pos = HEADER_SIZE;
+        while (pos < bytes.length) {
+            long v = 0;
+            int shift = 0;
+            boolean complete = false;
+            while (pos < bytes.length && shift < 64) {
+                byte b = bytes[pos++];
+                v |= (long) (b & 0x7F) << shift;
+                shift += 7;
+                if (b >= 0) { complete = true; break; }
+            }
+            if (!complete) break;
+            long zz = v >>> 1;
+            t += (zz >>> 1) ^ -(zz & 1);
+            if ((v & 1) == OP_REMOVE) {
+                into.remove(t);
+                removes++;
+            } else {
+                into.add(t);
+            }
+            records++;
+            end = pos;
+        }
+        prev = t;
+        known = end;
+        if (end < bytes.length) {
+            LOG.warning("Dropping " + (bytes.length - end) + " torn bytes at the end of " + path);
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                ch.truncate(end);
+            }
+        }
+        if (removes > 1024 && removes * 4L > records) rewrite(into);
+        return bytes.length;
+    }
+
+    public synchronized void append(long epochSecond) throws IOException {
+        write(epochSecond, 0);
+    }
+
+    public synchronized void appendRemove(long epochSecond) throws IOException {
+        write(epochSecond, OP_REMOVE);
+    }
+
+    /** Forces the records appended so far to disk, once per batch of appends. */
+    public synchronized void sync() throws IOException {
+        if (out != null) out.force(false);
+    }
+
+    /**
+     * Hands out what other processes appended since the last call, or null when the file was
+     * rewritten or removed elsewhere and has to be {@link #load}ed again.
+     */
+    public synchronized List<Change> readTail() throws IOException {
+        catchUp();
+        List<Change> tail = foreignReset ? null : foreign;
+        foreign = new ArrayList<>();
+        foreignReset = false;
+        return tail;
+    }
+
+    /** Replaces the file with just the events in {@code from}. */
+    public synchronized void rewrite(EventStore from) throws IOException {
+        closeChannel();
+        try (FileChannel cur = Files.exists(path) ? FileChannel.open(path, StandardOpenOption.WRITE) : null) {
+            if (cur != null) cur.lock(); // held over the move, so no other process appends to the file being replaced
+            replace(from);
+        }
+    }
+
+    private void replace(EventStore from) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        long[] last = {0};
+        try (DataOutputStream o = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            o.writeInt(MAGIC);
+            o.writeInt(VERSION);
+            from.forEach(t -> {
+                try {
+                    writeVarLong(o, zigzag(t - last[0]) << 1);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                last[0] = t;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        bytesWritten += Files.size(tmp);
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        prev = last[0];
+        knownKey = fileKey(path);
+        known = Files.size(path);
+    }
+
+    /** Drops every event. */
+    public synchronized void clear() throws IOException {
+        rewrite(new EventStore(ZoneOffset.UTC));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeChannel();
+    }
+
+    private void write(long epochSecond, int op) throws IOException {
+        for (;;) {
+            if (out == null || !Objects.equals(outKey, fileKey(path))) {
+                closeChannel();
+                out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                outKey = fileKey(path);
+            }
+            FileLock lock = out.lock();
+            try {
+                if (!Objects.equals(outKey, fileKey(path))) continue; // replaced while waiting for the lock
+                catchUp();
+                if (out.size() == 0) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+                    while (header.hasRemaining()) out.write(header);
+                    bytesWritten += HEADER_SIZE;
+                    prev = 0;
+                }
+                long v = zigzag(epochSecond - prev) << 1 | op;
+                record.clear();
+                while ((v & ~0x7FL) != 0) {
+                    record.put((byte) ((v & 0x7F) | 0x80));
+                    v >>>= 7;
+                }
+                record.put((byte) v).flip();
+                bytesWritten += record.remaining();
+                while (record.hasRemaining()) out.write(record);
+                prev = epochSecond;
+                known = out.size();
+            } finally {
+                lock.release();
+            }
+            return;
+        }
+    }
+
+    /** Decodes the whole records past {@link #known} into {@link #foreign}, moving {@link #prev} along. */
+    private void catchUp() throws IOException {
+        Object key = fileKey(path);
+        if (!Objects.equals(key, knownKey)) {
+            if (knownKey != null) { // what is there now is not a continuation of what was read
+                foreign.clear();
+                foreignReset = true;
+            }
+            knownKey = key;
+            known = 0;
+            prev = 0;
+        }
+        if (key == null) return;
+        byte[] bytes;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (known == 0) {
+                if (size < HEADER_SIZE) return;
+                known = HEADER_SIZE;
+            }
+            if (size <= known) return;
+            ByteBuffer buf = ByteBuffer.allocate((int) (size - known));
+            while (buf.hasRemaining() && ch.read(buf, known + buf.position()) >= 0) {
+                // read to the size seen above
+            }
+            bytes = buf.array();
+        }
+        long t = prev;
+        int pos = 0, end = 0;
+        while (pos < bytes.length) {
+            long v = 0;
+            int shift = 0;
+            boolean complete = false;
+            while (pos < bytes.length && shift < 64) {
+                byte b = bytes[pos++];
+                v |= (long) (b & 0x7F) << shift;
+                shift += 7;
+                if (b >= 0) { complete = true; break; }
+            }
+            if (!complete) break; // still being written
+            long zz = v >>> 1;
+            t += (zz >>> 1) ^ -(zz & 1);
+            foreign.add(new Change(t, (v & 1) == OP_REMOVE));
+            end = pos;
+        }
+        prev = t;
+        known += end;
+    }
+
+    private void closeChannel() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    private static Object fileKey(Path p) throws IOException {
+        try {
+            BasicFileAttributes a = Files.readAttributes(p, BasicFileAttributes.class);
+            return a.fileKey() != null ? a.fileKey() : a.creationTime(); // no inode on this platform
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static void writeVarLong(DataOutput out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+}
@@ -0,0 +1,284 @@
+package quittrack;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Individual cigarettes as epoch-second timestamps, kept sorted in blocks of up to
+ * {@link #BLOCK} events. Inside a block each timestamp is a varint delta from the one before,
+ * so events minutes to hours apart take one to three bytes each; appending "now" only touches the last block.
+ * <p>
+ * Hourly and daily rollups (local time in {@code zone}) are kept in step with every change, so
+ * per-day and per-hour counts are plain array lookups whatever the number of events.
+ */
+public class EventStore {
+    public static final long NONE = Long.MIN_VALUE;
+    static final int BLOCK = 4096;
+
+    public interface EventVisitor {
+        void visit(long epochSecond);
+    }
+
+    private static final class Block {
+        long first, last;
+        int n;
+        byte[] data = new byte[64]; // n - 1 varint deltas
+        int len;
+    }
+
+    private final ZoneRules zone;
+    private final List<Block> blocks = new ArrayList<>();
+    private long size;
+
+    // Rollups, indexed from rollupBase (an epoch day)
+    private long rollupBase;
+    private int[] days = new int[0];
+    private int[] hours = new int[0];       // 24 per day
+
+    public EventStore(ZoneId zone) {
+        this.zone = zone.getRules();
+    }
+
+    public long size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    /** Newest timestamp, or {@link #NONE}. */
+    public long last() {
+        return blocks.isEmpty() ? NONE : blocks.get(blocks.size() - 1).last;
+    }
+
+    /** The local epoch day of {@code epochSecond}. */
+    public long dayOf(long epochSecond) {
+        return Math.floorDiv(localSecond(epochSecond), 86_400);
+    }
+
+    public int dayCount(long epochDay) {
+        long i = epochDay - rollupBase;
+        return i < 0 || i >= days.length ? 0 : days[(int) i];
+    }
+
+    public int hourCount(long epochDay, int hour) {
+        long i = (epochDay - rollupBase) * 24 + hour;
+        return i < 0 || i >= hours.length ? 0 : hours[(int) i];
+    }
+
+    /** Events per hour of the day summed over {@code [fromDay, toDay]}. */
+    public int[] hourProfile(long fromDay, long toDay) {
+        int[] out = new int[24];
+        long from = Math.max(fromDay, rollupBase), to = Math.min(toDay, rollupBase + days.length - 1);
+        for (long d = from; d <= to; d++) {
+            int off = (int) (d - rollupBase) * 24;
+            for (int h = 0; h < 24; h++) out[h] += hours[off + h];
+        }
+        return out;
+    }
+
+    /** Records one event and returns its local epoch day. */
+    public long add(long epochSecond) {
+        Block last = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+        if (last != null && epochSecond >= last.last && last.n < BLOCK) {
+            writeVarLong(last, epochSecond - last.last);
+            last.last = epochSecond;
+            if (++last.n == BLOCK) last.data = Arrays.copyOf(last.data, last.len); // full: trim the slack
+        } else if (last == null || epochSecond >= last.last) {
+            Block b = new Block();
+            b.first = b.last = epochSecond;
+            b.n = 1;
+            blocks.add(b);
+        } else {
+            int bi = blockFor(epochSecond);
+            long[] ts = decode(blocks.get(bi));
+            int at = upperBound(ts, epochSecond);
+            long[] grown = new long[ts.length + 1];
+            System.arraycopy(ts, 0, grown, 0, at);
+            grown[at] = epochSecond;
+            System.arraycopy(ts, at, grown, at + 1, ts.length - at);
+            replace(bi, grown);
+        }
+        size++;
+        return rollup(epochSecond, 1);
+    }
+
+    /** Removes one event at exactly {@code epochSecond}; false if there is none. */
+    public boolean remove(long epochSecond) {
+        if (blocks.isEmpty()) return false;
+        int bi = blockFor(epochSecond);
+        Block b = blocks.get(bi);
+        if (epochSecond < b.first || epochSecond > b.last) return false;
+        long[] ts = decode(b);
+        int at = upperBound(ts, epochSecond) - 1;
+        if (at < 0 || ts[at] != epochSecond) return false;
+        long[] shrunk = new long[ts.length - 1];
+        System.arraycopy(ts, 0, shrunk, 0, at);
+        System.arraycopy(ts, at + 1, shrunk, at, shrunk.length - at);
+        replace(bi, shrunk);
+        size--;
+        rollup(epochSecond, -1);
+        return true;
+    }
+
+    public void clear() {
+        blocks.clear();
+        size = 0;
+        rollupBase = 0;
+        days = new int[0];
+        hours = new int[0];
+    }
+
+    /** Takes over every event of {@code o}, which is left empty. Both must be in the same zone. */
+    public void takeFrom(EventStore o) {
+        if (!zone.equals(o.zone)) throw new IllegalArgumentException("Different time zones");
+        blocks.clear();
+        blocks.addAll(o.blocks);
+        size = o.size;
+        rollupBase = o.rollupBase;
+        days = o.days;
+        hours = o.hours;
+        o.blocks.clear();
+        o.clear();
+    }
+
+    /** Visits every event in time order. */
+    public void forEach(EventVisitor v) {
+        for (Block b : blocks) {
+            long t = b.first;
+            v.visit(t);
+            int[] pos = {0};
+            for (int i = 1; i < b.n; i++) {
+                t += readVarLong(b.data, pos);
+                v.visit(t);
+            }
+        }
+    }
+
+    /** Visits the events in {@code [fromSecond, toSecond]} in time order. */
+    public void forEachInRange(long fromSecond, long toSecond, EventVisitor v) {
+        for (int bi = blocks.isEmpty() ? 0 : blockFor(fromSecond); bi < blocks.size(); bi++) {
+            Block b = blocks.get(bi);
+            if (b.first > toSecond) return;
+            if (b.last < fromSecond) continue;
+            for (long t : decode(b)) {
+                if (t > toSecond) return;
+                if (t >= fromSecond) v.visit(t);
+            }
+        }
+    }
+
+    /** Bytes held by the encoded events, for sizing. */
+    public long encodedBytes() {
+        long n = 0;
+        for (Block b : blocks) n += b.len + 16;
+        return n;
+    }
+
+    // ---------- Blocks ----------
+    /** Index of the last block starting at or before {@code t}, or 0. */
+    private int blockFor(long t) {
+        int lo = 0, hi = blocks.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (blocks.get(mid).first <= t) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    /** Re-encodes block {@code bi} from sorted {@code ts}, splitting or dropping it as needed. */
+    private void replace(int bi, long[] ts) {
+        blocks.remove(bi);
+        for (int from = 0; from < ts.length; from += BLOCK) {
+            blocks.add(bi++, encode(ts, from, Math.min(ts.length, from + BLOCK)));
+        }
+    }
+
+    private static Block encode(long[] ts, int from, int to) {
+        Block b = new Block();
+        b.first = b.last = ts[from];
+        b.n = 1;
+        for (int i = from + 1; i < to; i++) {
+            writeVarLong(b, ts[i] - b.last);
+            b.last = ts[i];
+            b.n++;
+        }
+        b.data = Arrays.copyOf(b.data, b.len);
+        return b;
+    }
+
+    private static long[] decode(Block b) {
+        long[] ts = new long[b.n];
+        ts[0] = b.first;
+        int[] pos = {0};
+        for (int i = 1; i < b.n; i++) ts[i] = ts[i - 1] + readVarLong(b.data, pos);
+        return ts;
+    }
+
+    private static int upperBound(long[] ts, long t) {
+        int lo = 0, hi = ts.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ts[mid] <= t) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static void writeVarLong(Block b, long v) {
+        if (b.len + 10 > b.data.length) b.data = Arrays.copyOf(b.data, Math.max(64, b.data.length * 2));
+        while ((v & ~0x7FL) != 0) {
+            b.data[b.len++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        b.data[b.len++] = (byte) v;
+    }
+
+    private static long readVarLong(byte[] data, int[] pos) {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[pos[0]++];
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+    }
+
+    // ---------- Rollups ----------
+    private long localSecond(long epochSecond) {
+        return epochSecond + zone.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+    }
+
+    private long rollup(long epochSecond, int delta) {
+        long local = localSecond(epochSecond);
+        long day = Math.floorDiv(local, 86_400);
+        int hour = Math.floorMod(local, 86_400) / 3600;
+        ensureCapacity(day);
+        int i = (int) (day - rollupBase);
+        days[i] += delta;
+        hours[i * 24 + hour] += delta;
+        return day;
+    }
+
+    private void ensureCapacity(long day) {
+        if (days.length == 0) {
+            rollupBase = day - 366;
+            days = new int[366 * 2];
+            hours = new int[days.length * 24];
+            return;
+        }
+        long end = rollupBase + days.length;
+        if (day >= rollupBase && day < end) return;
+        long newBase = day < rollupBase ? Math.min(day, rollupBase - days.length) : rollupBase;
+        long newEnd = day >= end ? Math.max(day + 1, end + days.length) : end;
+        if (newEnd - newBase > Integer.MAX_VALUE / 24) throw new IllegalArgumentException("Event out of supported range: " + day);
+        int[] d = new int[(int) (newEnd - newBase)];
+        int[] h = new int[d.length * 24];
+        int off = (int) (rollupBase - newBase);
+        System.arraycopy(days, 0, d, off, days.length);
+        System.arraycopy(hours, 0, h, off * 24, hours.length);
+        days = d;
+        hours = h;
+        rollupBase = newBase;
+    }
+}
@@ -0,0 +1,68 @@
+package quittrack;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size log-linear histogram of durations in nanoseconds: eight buckets per power of two,
+ * so any percentile is within ~12% of the true value. Recording is a couple of shifts and one
+ * atomic increment, with no allocation; safe to record from any thread.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB = 1 << SUB_BITS;      // buckets per power of two
+    private static final int LINEAR = SUB * 2;         // values below this get a bucket each
+    private static final int BUCKETS = LINEAR + (64 - SUB_BITS - 1) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucket(nanos));
+        count.incrementAndGet();
+        total.addAndGet(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long count() { return count.get(); }
+    public long maxNanos() { return max.get(); }
+    public long meanNanos() { long n = count.get(); return n == 0 ? 0 : total.get() / n; }
+
+    /** Upper bound of the bucket holding the {@code p}-quantile ({@code 0 < p <= 1}), or 0 when empty. */
+    public long percentileNanos(double p) {
+        long n = count.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    private static int bucket(long v) {
+        if (v < LINEAR) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);          // >= SUB_BITS + 1
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB - 1);
+        return LINEAR + (exp - SUB_BITS - 1) * SUB + sub;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < LINEAR) return bucket;
+        int exp = (bucket - LINEAR) / SUB + SUB_BITS + 1;
+        int sub = (bucket - LINEAR) % SUB;
+        long width = 1L << (exp - SUB_BITS);
+        return ((long) (SUB + sub) << (exp - SUB_BITS)) + width - 1;
+    }
+}
@@ -0,0 +1,237 @@
+package quittrack;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Plain {@code date,cigs} CSV, kept as the import/export and backup format.
+ * <p>
+ * Reading works on the raw bytes of a memory-mapped file and decodes {@code yyyy-MM-dd,count}
+ * straight into an epoch day and an int, with no per-line objects. Files above
+ * {@link #CHUNK_BYTES} are cut into line-aligned chunks parsed in parallel on the common
+ * fork-join pool; each chunk fills its own {@link LogStore} and the chunks are applied in file
+ * order, so later rows still win. Malformed lines are skipped and counted, not fatal.
+ */
+public final class LogCsv {
+    private LogCsv() {}
+
+    /** Outcome of a {@link #read}: {@code firstBadLine} is 1-based, 0 when every line was fine. */
+    public record ReadSummary(int rows, int skipped, long firstBadLine) {
+        static final ReadSummary EMPTY = new ReadSummary(0, 0, 0);
+
+        public ReadSummary plus(ReadSummary o) {
+            long bad = firstBadLine != 0 ? firstBadLine : o.firstBadLine;
+            return new ReadSummary(rows + o.rows, skipped + o.skipped, bad);
+        }
+
+        @Override public String toString() { return describe(null); }
+
+        /** Like {@link #toString}, naming {@code file} (when not null) as the one the first bad line is in. */
+        public String describe(String file) {
+            if (skipped == 0) return rows + " rows";
+            String where = file == null ? "line " : file + " line ";
+            return rows + " rows, " + skipped + " bad lines skipped" + (firstBadLine == 0 ? "" : " (first at " + where + firstBadLine + ")");
+        }
+    }
+
+    static final int CHUNK_BYTES = 1 << 20;
+    private static final long DAYS_0000_TO_1970 = 719_528;
+
+    /** Adds every row of {@code p} to {@code into}; later rows win. */
+    public static ReadSummary read(Path p, LogStore into) throws IOException {
+        return read(p, into, CHUNK_BYTES);
+    }
+
+    /** {@link #read} with files above {@code chunkBytes} cut into chunks of at least that size. */
+    static ReadSummary read(Path p, LogStore into, int chunkBytes) throws IOException {
+        try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size == 0) return ReadSummary.EMPTY;
+            long[] bounds = chunkBounds(ch, size, chunkBytes);
+            Chunk[] chunks = new Chunk[bounds.length - 1];
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = new Chunk(ch.map(FileChannel.MapMode.READ_ONLY, bounds[i], bounds[i + 1] - bounds[i]), i == 0);
+            }
+            if (chunks.length == 1) chunks[0].parse();
+            else ForkJoinPool.commonPool().invoke(new ParseTask(chunks, 0, chunks.length));
+
+            ReadSummary total = ReadSummary.EMPTY;
+            long linesBefore = 0;
+            for (Chunk c : chunks) {
+                c.store.forEach(into::put);
+                total = total.plus(new ReadSummary(c.rows, c.skipped, c.firstBad == 0 ? 0 : linesBefore + c.firstBad));
+                linesBefore += c.lines;
+            }
+            return total;
+        }
+    }
+
+    public static void write(LogStore from, Path p) throws IOException {
+        try (BufferedWriter bw = Files.newBufferedWriter(p)) {
+            for (long d = from.firstDay(); d != LogStore.NONE; d = from.nextDay(d + 1)) {
+                bw.write(LocalDate.ofEpochDay(d).toString() + "," + from.get(d));
+                bw.newLine();
+            }
+        }
+    }
+
+    // ---------- Chunking ----------
+    /** Offsets {@code 0 = b[0] < b[1] < … < b[n] = size}, each inner one just past a newline. */
+    private static long[] chunkBounds(FileChannel ch, long size, int chunkBytes) throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        if (size > chunkBytes) {
+            int parts = Math.max(1, ForkJoinPool.getCommonPoolParallelism()) * 4;
+            long target = Math.max(chunkBytes, size / parts);
+            ByteBuffer probe = ByteBuffer.allocate(4096);
+            long pos = target;
+            while (pos < size) {
+                long nl = nextLineStart(ch, pos, size, probe);
+                if (nl >= size) break;
+                bounds.add(nl);
+                pos = nl + target;
+            }
+        }
+        bounds.add(size);
+        long[] out = new long[bounds.size()];
+        for (int i = 0; i < out.length; i++) out[i] = bounds.get(i);
+        return out;
+    }
+
+    private static long nextLineStart(FileChannel ch, long pos, long size, ByteBuffer probe) throws IOException {
+        while (pos < size) {
+            probe.clear();
+            int n = ch.read(probe, pos);
+            if (n <= 0) return size;
+            for (int i = 0; i < n; i++) if (probe.get(i) == '\n') return pos + i + 1;
+            pos += n;
+        }
+        return size;
+    }
+
+    private static final class ParseTask extends RecursiveAction {
+        private final Chunk[] chunks;
+        private final int lo, hi;
+
+        ParseTask(Chunk[] chunks, int lo, int hi) {
+            this.chunks = chunks;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override protected void compute() {
+            if (hi - lo == 1) {
+                chunks[lo].parse();
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ParseTask(chunks, lo, mid), new ParseTask(chunks, mid, hi));
+        }
+    }
+
+    // ---------- Parsing ----------
+    private static final class Chunk {
+        final MappedByteBuffer buf;
+        final boolean first;
+        final LogStore store = new LogStore();
+        int rows, skipped;
+        long lines, firstBad; // firstBad is 1-based within the chunk
+
+        Chunk(MappedByteBuffer buf, boolean first) {
+            this.buf = buf;
+            this.first = first;
+        }
+
+        void parse() {
+            int end = buf.limit();
+            int start = 0;
+            if (first && end >= 3 && buf.get(0) == (byte) 0xEF && buf.get(1) == (byte) 0xBB && buf.get(2) == (byte) 0xBF) start = 3; // UTF-8 BOM
+            while (start < end) {
+                int nl = start;
+                while (nl < end && buf.get(nl) != '\n') nl++;
+                lines++;
+                line(start, nl);
+                start = nl + 1;
+            }
+        }
+
+        private void line(int from, int to) {
+            while (from < to && isBlank(buf.get(from))) from++;
+            while (to > from && isBlank(buf.get(to - 1))) to--;
+            if (from == to) return; // empty lines are not errors
+            int comma = from;
+            while (comma < to && buf.get(comma) != ',') comma++;
+            long day = comma < to ? parseDate(from, trimEnd(from, comma)) : LogStore.NONE;
+            int count = day != LogStore.NONE ? parseCount(trimStart(comma + 1, to), to) : -1;
+            if (count < 0) {
+                skipped++;
+                if (firstBad == 0) firstBad = lines;
+                return;
+            }
+            store.put(day, count);
+            rows++;
+        }
+
+        /** {@code yyyy-MM-dd} as an epoch day, or {@link LogStore#NONE}. */
+        private long parseDate(int from, int to) {
+            if (to - from != 10 || buf.get(from + 4) != '-' || buf.get(from + 7) != '-') return LogStore.NONE;
+            int y = digits(from, 4), m = digits(from + 5, 2), d = digits(from + 8, 2);
+            if (y < 0 || m < 1 || m > 12 || d < 1 || d > monthLength(y, m)) return LogStore.NONE;
+            long total = 365L * y + (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+            total += (367 * m - 362) / 12 + d - 1;
+            if (m > 2) total -= isLeap(y) ? 1 : 2;
+            return total - DAYS_0000_TO_1970;
+        }
+
+        /** A count in {@code 0..MAX_COUNT}, or -1. */
+        private int parseCount(int from, int to) {
+            if (from < to && buf.get(from) == '+') from++;
+            if (from == to || to - from > 9) return -1;
+            int v = digits(from, to - from);
+            return v > LogStore.MAX_COUNT ? -1 : v;
+        }
+
+        private int digits(int from, int n) {
+            int v = 0;
+            for (int i = from; i < from + n; i++) {
+                int c = buf.get(i) - '0';
+                if (c < 0 || c > 9) return -1;
+                v = v * 10 + c;
+            }
+            return v;
+        }
+
+        private int trimStart(int from, int to) {
+            while (from < to && isBlank(buf.get(from))) from++;
+            return from;
+        }
+
+        private int trimEnd(int from, int to) {
+            while (to > from && isBlank(buf.get(to - 1))) to--;
+            return to;
+        }
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static boolean isLeap(int y) {
+        return (y & 3) == 0 && (y % 100 != 0 || y % 400 == 0);
+    }
+
+    private static int monthLength(int y, int m) {
+        return m == 2 ? (isLeap(y) ? 29 : 28) : (m == 4 || m == 6 || m == 9 || m == 11) ? 30 : 31;
+    }
+}
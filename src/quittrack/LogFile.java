@@ -0,0 +1,238 @@
+package quittrack;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fixed-width binary log file ({@code logs.bin}), read and written through a {@link MappedByteBuffer}.
+ * <pre>
+ *   header  magic "QTLG" (4) | version (4) | base epoch day (8) | slot count (4) | generation (4) | journals (4) | replaced (4)
+ *   slots   one signed short per day starting at the base day, -1 = no entry
+ * </pre>
+ * Updating a day is a single in-place slot write. Growing towards later days appends slots
+ * before the header counts them. Anything that would move a day's slot (an earlier base, a
+ * full rewrite) writes a new file and moves it into place, so no crash leaves days shifted.
+ * The replaced file is marked so that every process still mapping it reopens the path; a
+ * header grown by another process is picked up the same way, before each access. The
+ * generation counts full rewrites, which bypass the journal, and journals counts the journal
+ * files retired; both let another process notice what it missed.
+ */
+public class LogFile implements Closeable {
+    private static final int MAGIC = 0x51544C47; // "QTLG"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = 2;
+    private static final short EMPTY = -1;
+    private static final int GROW_SLOTS = 366;
+
+    private final Path path;
+    private FileChannel ch;
+    private MappedByteBuffer map;
+    private long base;
+    private int slots;
+
+    private LogFile(Path path, FileChannel ch) {
+        this.path = path;
+        this.ch = ch;
+    }
+
+    public static LogFile open(Path path) throws IOException {
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        LogFile f = new LogFile(path, ch);
+        try {
+            if (ch.size() == 0) {
+                f.writeHeader(0, 0);
+            }
+            f.remap();
+            if (f.map.getInt(0) != MAGIC) throw new IOException(path.getFileName() + " is not a QuitTrack log file");
+            if (f.map.getInt(4) != VERSION) throw new IOException("Unsupported log file version " + f.map.getInt(4));
+            f.base = f.map.getLong(8);
+            f.slots = f.map.getInt(16);
+            if (HEADER_SIZE + (long) f.slots * SLOT_SIZE > ch.size()) throw new IOException(path.getFileName() + " is truncated");
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+        return f;
+    }
+
+    public Path path() { return path; }
+
+    /** Copies every logged day into {@code into} (which is not cleared first). */
+    public synchronized void readInto(LogStore into) throws IOException {
+        refresh();
+        for (int i = 0; i < slots; i++) {
+            short v = map.getShort(HEADER_SIZE + i * SLOT_SIZE);
+            if (v != EMPTY) into.put(base + i, v);
+        }
+    }
+
+    /** The count stored for {@code epochDay} right now, by whichever process; -1 for no entry. */
+    public synchronized int get(long epochDay) throws IOException {
+        refresh();
+        if (epochDay < base || epochDay >= base + slots) return -1;
+        short v = map.getShort(slotOffset(epochDay));
+        return v == EMPTY ? -1 : v;
+    }
+
+    public synchronized void put(long epochDay, int count) throws IOException {
+        if (count < 0 || count > LogStore.MAX_COUNT) throw new IllegalArgumentException("Count out of range: " + count);
+        refresh();
+        if (epochDay < base || epochDay >= base + slots) grow(epochDay);
+        map.putShort(slotOffset(epochDay), (short) count);
+    }
+
+    public synchronized void remove(long epochDay) throws IOException {
+        refresh();
+        if (epochDay < base || epochDay >= base + slots) return;
+        map.putShort(slotOffset(epochDay), EMPTY);
+    }
+
+    public synchronized void clear() throws IOException {
+        refresh();
+        for (int i = 0; i < slots; i++) map.putShort(HEADER_SIZE + i * SLOT_SIZE, EMPTY);
+    }
+
+    /** Replaces the whole content with {@code from}, through a new file. */
+    public synchronized void writeAll(LogStore from) throws IOException {
+        refresh();
+        long first = from.firstDay();
+        if (first == LogStore.NONE) {
+            replace(0, 0, 1, body -> { });
+            return;
+        }
+        long newSlots = from.lastDay() + 1 + GROW_SLOTS - first;
+        checkSlots(newSlots, from.lastDay());
+        replace(first, (int) newSlots, 1, body -> from.forEach((day, count) -> body.putShort((int) (day - first) * SLOT_SIZE, (short) count)));
+    }
+
+    /** Full rewrites so far, by any process. */
+    public synchronized int generation() throws IOException {
+        refresh();
+        return map.getInt(20);
+    }
+
+    /** Journal files retired so far, by any process. */
+    public synchronized int journals() throws IOException {
+        refresh();
+        return map.getInt(24);
+    }
+
+    /** Counts one more retired journal file. */
+    public synchronized void journalRetired() throws IOException {
+        refresh();
+        map.putInt(24, map.getInt(24) + 1);
+    }
+
+    /** Flushes dirty pages to disk. */
+    public synchronized void force() {
+        map.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        map.force();
+        ch.close();
+    }
+
+    private int slotOffset(long epochDay) {
+        return HEADER_SIZE + (int) (epochDay - base) * SLOT_SIZE;
+    }
+
+    private void grow(long day) throws IOException {
+        if (slots > 0 && day < base) { // every slot moves: into a new file
+            long newBase = day - GROW_SLOTS; // slack so the next earlier day does not move them again
+            long newSlots = base + slots - newBase;
+            checkSlots(newSlots, day);
+            int shift = (int) (base - newBase);
+            replace(newBase, (int) newSlots, 0, body -> {
+                for (int i = 0; i < slots; i++) body.putShort((i + shift) * SLOT_SIZE, map.getShort(HEADER_SIZE + i * SLOT_SIZE));
+            });
+            return;
+        }
+        long newBase = slots == 0 ? day : base;
+        long newSlots = day + 1 + GROW_SLOTS - newBase;
+        checkSlots(newSlots, day);
+        // The new slots are on disk before the header counts them; no existing slot moves.
+        ByteBuffer tail = ByteBuffer.allocate((int) (newSlots - slots) * SLOT_SIZE);
+        for (int i = 0; i < tail.capacity(); i += SLOT_SIZE) tail.putShort(i, EMPTY);
+        long at = HEADER_SIZE + (long) slots * SLOT_SIZE;
+        while (tail.hasRemaining()) ch.write(tail, at + tail.position());
+        ch.force(false);
+        writeHeader(newBase, (int) newSlots);
+        base = newBase;
+        slots = (int) newSlots;
+        remap();
+    }
+
+    private static void checkSlots(long newSlots, long day) throws IOException {
+        if (newSlots > (Integer.MAX_VALUE - HEADER_SIZE) / SLOT_SIZE) throw new IOException("Day out of supported range: " + day);
+    }
+
+    private interface BodyWriter {
+        void write(ByteBuffer body) throws IOException;
+    }
+
+    /**
+     * Writes a file of {@code newSlots} slots from {@code newBase} (all empty until {@code fill}
+     * sets some), moves it over this one and marks this one replaced. A relayout keeps the
+     * generation: the same days are there and the journal has the records that moved them.
+     */
+    private void replace(long newBase, int newSlots, int generations, BodyWriter fill) throws IOException {
+        ByteBuffer file = ByteBuffer.allocate(HEADER_SIZE + newSlots * SLOT_SIZE);
+        file.putInt(MAGIC).putInt(VERSION).putLong(newBase).putInt(newSlots).putInt(map.getInt(20) + generations).putInt(map.getInt(24)).putInt(0);
+        ByteBuffer body = file.slice();
+        for (int i = 0; i < newSlots; i++) body.putShort(i * SLOT_SIZE, EMPTY);
+        fill.write(body);
+        file.clear();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (file.hasRemaining()) out.write(file);
+            out.force(false);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        map.putInt(28, 1);
+        reopen();
+    }
+
+    /** Re-reads the header and remaps when another process grew or replaced the file. */
+    private void refresh() throws IOException {
+        if (map.getInt(28) != 0) {
+            reopen();
+            return;
+        }
+        long b = map.getLong(8);
+        int s = map.getInt(16);
+        if (b == base && s == slots) return;
+        remap();
+        base = b;
+        slots = s;
+    }
+
+    private void reopen() throws IOException {
+        ch.close();
+        ch = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        remap();
+        base = map.getLong(8);
+        slots = map.getInt(16);
+    }
+
+    private void writeHeader(long base, int slots) throws IOException {
+        int generation = map == null ? 0 : map.getInt(20), journals = map == null ? 0 : map.getInt(24);
+        ByteBuffer h = ByteBuffer.allocate(HEADER_SIZE);
+        h.putInt(MAGIC).putInt(VERSION).putLong(base).putInt(slots).putInt(generation).putInt(journals).putInt(0).clear();
+        while (h.hasRemaining()) ch.write(h, h.position());
+        ch.force(false);
+    }
+
+    private void remap() throws IOException {
+        map = ch.map(FileChannel.MapMode.READ_WRITE, 0, ch.size());
+    }
+}
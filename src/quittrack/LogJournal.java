@@ -0,0 +1,350 @@
+package quittrack;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Write-ahead journal in front of the mapped {@link LogFile}.
+ * Every mutation is appended as one fixed-size record to {@code logs.journal} and then applied
+ * in place to {@code logs.bin}, so a save costs the same no matter how long the history is.
+ * Appended records are durable once {@link #sync} forces them, which callers do once per batch.
+ * Mapped writes are only durable once flushed; a background checkpoint rotates the journal,
+ * forces the mapped file and drops the rotated journal.
+ * Loading reads the mapped file and replays any journal left over from a crash.
+ * <p>
+ * Several instances may share the files: appends hold an OS lock on the journal, and whatever
+ * another process appended since this one last looked is read back first (from where this
+ * one stopped, across rotations) and handed out by {@link #readTail}.
+ */
+public class LogJournal implements Closeable {
+    private static final Logger LOG = Logger.getLogger(LogJournal.class.getName());
+
+    private static final byte OP_PUT = 'P';
+    private static final byte OP_REMOVE = 'R';
+    private static final byte OP_CLEAR = 'C';
+    private static final int RECORD_SIZE = 7; // op(1) + epochDay(4) + count(2)
+
+    /** A day another process changed; {@code count} is -1 for a removal. */
+    public record Mutation(long epochDay, int count) {}
+
+    /**
+     * What other processes journaled since the last call. {@code superseded} of their changes
+     * were dropped because this instance wrote the same day after them.
+     */
+    public record Tail(List<Mutation> mutations, int superseded) {
+        public boolean isEmpty() { return mutations.isEmpty() && superseded == 0; }
+    }
+
+    private static final int CHECKPOINT_AFTER_RECORDS = 256;
+    private static final long CHECKPOINT_INTERVAL_MINUTES = 5;
+
+    private final LogFile data;
+    private final Path journal;
+    private final Path rotated;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "quittrack-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private FileChannel out;
+    private int outSeq;
+    private FileChannel in;                             // the journal file as of the last look, for reading back
+    private int inSeq;                                  // its number among the journal files, counted by the data file
+    private long known;                                 // bytes of it written or read by this instance
+    private List<Mutation> foreign = new ArrayList<>(); // appended by other processes, not yet handed out
+    private int superseded;
+    private boolean foreignClear;
+    private boolean missed;                             // journal files came and went unread
+    private int knownGeneration;
+    private int pendingRecords;
+    private boolean checkpointQueued;
+    private long bytesWritten;
+
+    public LogJournal(LogFile data, Path journal) {
+        this.data = data;
+        this.journal = journal;
+        this.rotated = journal.resolveSibling(journal.getFileName() + ".old");
+        compactor.scheduleWithFixedDelay(this::checkpointQuietly,
+                CHECKPOINT_INTERVAL_MINUTES, CHECKPOINT_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    public Path path() { return journal; }
+    public Path dataPath() { return data.path(); }
+
+    /** Bytes written by appends and full replaces since this journal was opened. */
+    public synchronized long bytesWritten() { return bytesWritten; }
+
+    /** Clears {@code into} and fills it from the data file plus any journaled mutations. */
+    public synchronized void load(LogStore into) throws IOException {
+        into.clear();
+        data.readInto(into);
+        boolean replayed = replay(rotated, into) | replay(journal, into);
+        if (replayed && !matchesData(into)) {
+            // The mapped file missed those writes (a crash); bring it up to date before the journals go.
+            // A journal another running instance is still appending to has been applied already.
+            try (FileChannel c = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                c.lock(); // released with the channel; appends elsewhere wait for the new file
+                data.writeAll(into);
+                truncateJournals();
+            }
+        }
+        inSeq = data.journals();
+        readForeign(); // what is in the journal now has just been loaded
+        foreign.clear();
+        foreignClear = missed = false;
+        knownGeneration = data.generation();
+    }
+
+    /**
+     * Hands out what other processes journaled since the last call, or null when the data file
+     * was rewritten or cleared elsewhere and only {@link #readDisk} can tell what changed.
+     */
+    public synchronized Tail readTail() throws IOException {
+        readForeign();
+        boolean lost = foreignClear || missed || data.generation() != knownGeneration;
+        Tail t = lost ? null : new Tail(foreign, superseded);
+        foreign = new ArrayList<>();
+        superseded = 0;
+        foreignClear = false;
+        missed = false;
+        knownGeneration = data.generation();
+        return t;
+    }
+
+    /**
+     * Clears {@code into} and fills it with what is on disk now. Every process applies its
+     * records to the shared data file as it appends them, so that file is the whole state.
+     */
+    public synchronized void readDisk(LogStore into) throws IOException {
+        readTail();
+        into.clear();
+        data.readInto(into);
+    }
+
+    /** What the data file holds for {@code epochDay} now; -1 for no entry. */
+    public int onDisk(long epochDay) throws IOException {
+        return data.get(epochDay);
+    }
+
+    public void appendPut(long epochDay, int count) throws IOException {
+        append(OP_PUT, epochDay, count);
+    }
+
+    public void appendRemove(long epochDay) throws IOException {
+        append(OP_REMOVE, epochDay, 0);
+    }
+
+    public void appendClear() throws IOException {
+        append(OP_CLEAR, 0, 0);
+    }
+
+    /** Forces the records appended so far to disk; the group commit after a batch of appends. */
+    public synchronized void sync() throws IOException {
+        if (out != null) out.force(false);
+    }
+
+    /** Replaces everything on disk with {@code from} and checkpoints right away. */
+    public synchronized void replaceAll(LogStore from) throws IOException {
+        try (FileChannel c = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            c.lock(); // released with the channel; appends elsewhere wait for the new file
+            data.writeAll(from);
+            bytesWritten += (long) from.size() * Short.BYTES;
+            readForeign();
+            superseded += foreign.size();
+            foreign.clear();
+            truncateJournals();
+        }
+        knownGeneration = data.generation();
+    }
+
+    private synchronized void append(byte op, long epochDay, int count) throws IOException {
+        for (;;) {
+            if (out == null) {
+                outSeq = data.journals();
+                out = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            FileLock lock = out.lock();
+            try {
+                if (data.journals() != outSeq) { // retired by another process (or just before opening)
+                    out.force(false);
+                    out.close();
+                    out = null;
+                    continue;
+                }
+                readForeign(); // the same file as out now: nobody retires it while the lock is held
+                record.clear();
+                record.put(op).putInt((int) epochDay).putShort((short) count).flip();
+                while (record.hasRemaining()) out.write(record);
+                known += RECORD_SIZE;
+                // Same locks as the checkpoint rotation, so a record never lands in a retired journal unapplied.
+                switch (op) {
+                    case OP_PUT -> data.put(epochDay, count);
+                    case OP_REMOVE -> data.remove(epochDay);
+                    default -> data.clear();
+                }
+            } finally {
+                if (lock.isValid()) lock.release();
+            }
+            break;
+        }
+        bytesWritten += RECORD_SIZE;
+        // Anything another process journaled for this day came before this record.
+        int before = foreign.size();
+        if (op == OP_CLEAR) foreign.clear();
+        else foreign.removeIf(m -> m.epochDay() == epochDay);
+        superseded += before - foreign.size();
+        if (++pendingRecords >= CHECKPOINT_AFTER_RECORDS && !checkpointQueued) {
+            checkpointQueued = true;
+            compactor.execute(this::checkpointQuietly);
+        }
+    }
+
+    private void checkpoint() throws IOException {
+        synchronized (this) {
+            checkpointQueued = false;
+            // A leftover rotated journal means the last checkpoint failed; retire that one first.
+            if (!Files.exists(rotated)) {
+                if (pendingRecords == 0) return;
+                if (out != null) { out.force(false); out.close(); out = null; }
+                if (Files.exists(journal)) {
+                    try (FileChannel c = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+                        c.lock();  // released with the channel
+                        readForeign(); // whatever others appended last is read before the file is retired
+                        Files.move(journal, rotated, StandardCopyOption.ATOMIC_MOVE);
+                        data.journalRetired();
+                    }
+                }
+                pendingRecords = 0;
+            }
+        }
+        // Appends keep going to a fresh journal while the mapped pages are flushed.
+        data.force();
+        Files.deleteIfExists(rotated);
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Journal checkpoint failed, will retry", e);
+        }
+    }
+
+    private void truncateJournals() throws IOException {
+        // Deleted before the channels close: closing one drops the caller's lock on the journal.
+        if (Files.deleteIfExists(journal)) data.journalRetired();
+        Files.deleteIfExists(rotated);
+        if (out != null) { out.close(); out = null; }
+        if (in != null) { in.close(); in = null; }
+        pendingRecords = 0;
+        known = 0;
+        inSeq = data.journals();
+    }
+
+    /**
+     * Reads the records past {@link #known} into {@link #foreign}: the rest of the file last
+     * looked at (still readable after a rotation), then the current journal from the start.
+     * Journal files are told apart by the data file's count of retired ones.
+     */
+    private void readForeign() throws IOException {
+        for (;;) {
+            if (in != null) {
+                long whole = (in.size() - known) / RECORD_SIZE * RECORD_SIZE; // a record still being written waits
+                if (whole > 0) {
+                    ByteBuffer buf = ByteBuffer.allocate((int) whole);
+                    while (buf.hasRemaining()) {
+                        if (in.read(buf, known + buf.position()) < 0) throw new EOFException(journal.getFileName() + " shrank while reading");
+                    }
+                    buf.flip();
+                    while (buf.remaining() >= RECORD_SIZE) {
+                        byte op = buf.get();
+                        long day = buf.getInt();
+                        int count = buf.getShort();
+                        switch (op) {
+                            case OP_PUT -> foreign.add(new Mutation(day, count));
+                            case OP_REMOVE -> foreign.add(new Mutation(day, -1));
+                            case OP_CLEAR -> { foreign.clear(); foreignClear = true; }
+                            default -> throw new IOException("Corrupt journal record in " + journal.getFileName());
+                        }
+                    }
+                    known += whole;
+                }
+            }
+            int seq = data.journals();
+            if (in != null && seq == inSeq) return;
+            if (seq > (in != null ? inSeq + 1 : inSeq)) missed = true;
+            if (in != null) in.close();
+            in = null;
+            known = 0;
+            inSeq = seq;
+            try {
+                in = FileChannel.open(journal, StandardOpenOption.READ);
+            } catch (NoSuchFileException e) {
+                return;
+            }
+            if (data.journals() != seq) { // retired while opening: look again
+                in.close();
+                in = null;
+            }
+        }
+    }
+
+    /**
+     * Stops the compactor, checkpoints synchronously and closes the data file. The journal lock
+     * is held throughout, and the journals are replayed into the data file before they go, so a
+     * record another process appended but never applied (it died in between) is not lost.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        compactor.shutdownNow();
+        try (FileChannel c = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            c.lock(); // released with the channel; appends elsewhere wait for the new file
+            LogStore onDisk = new LogStore();
+            data.readInto(onDisk);
+            if ((replay(rotated, onDisk) | replay(journal, onDisk)) && !matchesData(onDisk)) data.writeAll(onDisk);
+            data.force();
+            truncateJournals();
+        } finally {
+            data.close();
+        }
+    }
+
+    private boolean matchesData(LogStore s) throws IOException {
+        LogStore d = new LogStore();
+        data.readInto(d);
+        if (d.size() != s.size()) return false;
+        boolean[] same = {true};
+        s.forEach((day, count) -> same[0] &= d.contains(day) && d.get(day) == count);
+        return same[0];
+    }
+
+    private static boolean replay(Path p, LogStore into) throws IOException {
+        if (!Files.exists(p)) return false;
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(p));
+        boolean any = false;
+        // A torn trailing record (crash mid-write) is ignored.
+        while (buf.remaining() >= RECORD_SIZE) {
+            byte op = buf.get();
+            long day = buf.getInt();
+            int count = buf.getShort();
+            switch (op) {
+                case OP_PUT -> into.put(day, count);
+                case OP_REMOVE -> into.remove(day);
+                case OP_CLEAR -> into.clear();
+                default -> throw new IOException("Corrupt journal record in " + p.getFileName());
+            }
+            any = true;
+        }
+        return any;
+    }
+}
@@ -0,0 +1,95 @@
+package quittrack;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Merging backups into a log: CSVs, and the base and delta files of a {@link BackupStore},
+ * each of which stands for the whole log as of its point. Files are read in parallel; the merge itself folds them in
+ * the given order over the current log with one {@link Policy} and yields only the days whose
+ * count actually changes, ready for a single {@link LogModel#putAll}.
+ */
+public final class LogMerge {
+    private LogMerge() {}
+
+    /** What to do when a day already has a count. */
+    public enum Policy {
+        KEEP_EXISTING("Keep existing"),
+        OVERWRITE("Overwrite"),
+        MAX("Keep the higher count"),
+        SUM("Add the counts");
+
+        private final String label;
+
+        Policy(String label) { this.label = label; }
+
+        /** {@code existing} is -1 when the day has no entry yet. */
+        int apply(int existing, int incoming) {
+            if (existing < 0) return incoming;
+            return switch (this) {
+                case KEEP_EXISTING -> existing;
+                case OVERWRITE -> incoming;
+                case MAX -> Math.max(existing, incoming);
+                case SUM -> Math.min(LogStore.MAX_COUNT, existing + incoming);
+            };
+        }
+
+        @Override public String toString() { return label; }
+    }
+
+    /**
+     * Parsed files, in the order given, plus the combined read summary; {@code firstBadFile} names
+     * the file its first bad line is in, or is null when none has one.
+     */
+    public record Parsed(List<LogStore> stores, LogCsv.ReadSummary summary, String firstBadFile) {
+        /** The summary for the status bar, its first bad line prefixed with the file name. */
+        public String describe() { return summary.describe(firstBadFile); }
+    }
+
+    /** Reads {@code files}; those named like backup points are restored from {@code backups}, which may be null. */
+    public static Parsed parse(List<Path> files, BackupStore backups) throws IOException {
+        record One(Path file, LogStore store, LogCsv.ReadSummary summary) {}
+        List<One> parsed;
+        try {
+            parsed = files.parallelStream().map(p -> {
+                try {
+                    if (backups != null && BackupStore.isBackupFile(p)) {
+                        LogStore s = backups.restore(p);
+                        return new One(p, s, new LogCsv.ReadSummary(s.size(), 0, 0));
+                    }
+                    LogStore s = new LogStore();
+                    return new One(p, s, LogCsv.read(p, s));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(p.getFileName() + ": " + e.getMessage(), e);
+                }
+            }).toList();
+        } catch (UncheckedIOException e) {
+            throw new IOException(e.getMessage(), e.getCause());
+        }
+        LogCsv.ReadSummary summary = LogCsv.ReadSummary.EMPTY;
+        String firstBadFile = null;
+        for (One o : parsed) { // in file order, so the first bad line is the first file's that has one
+            if (firstBadFile == null && o.summary().firstBadLine() != 0) firstBadFile = o.file().getFileName().toString();
+            summary = summary.plus(o.summary());
+        }
+        return new Parsed(parsed.stream().map(One::store).toList(), summary, firstBadFile);
+    }
+
+    /** The days whose count differs from {@code current} after merging {@code incoming} into it. */
+    public static LogStore changes(LogStore current, List<LogStore> incoming, Policy policy) {
+        LogStore merged = new LogStore(); // days touched so far, with their merged count
+        for (LogStore in : incoming) {
+            in.forEach((day, count) -> {
+                int existing = merged.contains(day) ? merged.get(day) : current.contains(day) ? current.get(day) : -1;
+                merged.put(day, policy.apply(existing, count));
+            });
+        }
+        LogStore changed = new LogStore();
+        merged.forEach((day, count) -> {
+            if (!current.contains(day) || current.get(day) != count) changed.put(day, count);
+        });
+        return changed;
+    }
+}
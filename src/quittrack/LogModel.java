@@ -0,0 +1,290 @@
+package quittrack;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The daily log plus settings, with the indexes derived from them kept in step.
+ * All mutations go through here and are published as fine-grained events, so views and
+ * persistence can react to exactly what changed. Not thread-safe: the UI uses it from the EDT
+ * once the initial load is done, {@link TrackerService} under a per-user stripe lock.
+ */
+public class LogModel {
+    public interface Listener {
+        /** One day changed; {@code prev}/{@code now} are -1 for "no entry". */
+        default void dayChanged(long epochDay, int prev, int now) {}
+        /** Every entry in {@code [fromDay, toDay]} was removed. */
+        default void rangeCleared(long fromDay, long toDay) {}
+        /** Entries in {@code [fromDay, toDay]} were replaced in bulk (e.g. an import). */
+        default void rangeChanged(long fromDay, long toDay) {}
+        /** The named {@link Settings} fields changed. */
+        default void settingsChanged(Set<String> fields) {}
+        /** One cigarette was recorded at {@code epochSecond}, or removed again; its day follows as {@link #dayChanged}. */
+        default void eventChanged(long epochSecond, boolean removed) {}
+        /** Every recorded event was replaced, e.g. by the event file as another process left it. */
+        default void eventsReplaced() {}
+        /**
+         * The {@link PriceHistory} changed, altering the savings of {@code [fromDay, toDay]}: the
+         * whole segment, logged or not, cut only to the days a {@link LocalDate} can hold. Consumers
+         * that walk days cut it further to what they show.
+         */
+        default void pricesChanged(long fromDay, long toDay) {}
+    }
+
+    private final LogStore store = new LogStore();
+    private final Settings settings = new Settings();
+    private final PriceHistory prices = new PriceHistory();
+    private final DayAggregates aggregates = new DayAggregates(store, prices);
+    private final StreakIndex streaks = new StreakIndex(store);
+    private final CountHistogram histogram = new CountHistogram(store);
+    private final DayStats stats = new DayStats();
+    private final EventStore events = new EventStore(ZoneId.systemDefault());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(Listener l) { listeners.add(l); }
+    public void removeListener(Listener l) { listeners.remove(l); }
+
+    /** Read-only view by convention; mutate through the model so the indexes follow. */
+    public LogStore store() { return store; }
+    public Settings settings() { return settings; }
+    public PriceHistory prices() { return prices; }
+    public DayAggregates aggregates() { return aggregates; }
+    public StreakIndex streaks() { return streaks; }
+    public CountHistogram histogram() { return histogram; }
+    public DayStats stats() { return stats; }
+    public EventStore events() { return events; }
+
+    public int get(long epochDay) { return store.get(epochDay); }
+
+    public void put(long epochDay, int count) {
+        int prev = store.put(epochDay, count);
+        if (prev == count) return;
+        aggregates.update(epochDay, prev, count);
+        streaks.update(epochDay, prev, count);
+        histogram.update(epochDay, prev, count);
+        stats.update(epochDay, prev, count);
+        for (Listener l : listeners) l.dayChanged(epochDay, prev, count);
+    }
+
+    public void remove(long epochDay) {
+        int prev = store.remove(epochDay);
+        if (prev < 0) return;
+        aggregates.update(epochDay, prev, -1);
+        streaks.update(epochDay, prev, -1);
+        histogram.update(epochDay, prev, -1);
+        stats.update(epochDay, prev, -1);
+        for (Listener l : listeners) l.dayChanged(epochDay, prev, -1);
+    }
+
+    /** Records one cigarette at {@code epochSecond} and adds it to that day's count. */
+    public void addEvent(long epochSecond) {
+        long day = events.add(epochSecond);
+        for (Listener l : listeners) l.eventChanged(epochSecond, false);
+        put(day, get(day) + 1);
+    }
+
+    /** Takes back the cigarette recorded at {@code epochSecond}; false if there is none. */
+    public boolean removeEvent(long epochSecond) {
+        if (!events.remove(epochSecond)) return false;
+        for (Listener l : listeners) l.eventChanged(epochSecond, true);
+        long day = events.dayOf(epochSecond);
+        if (store.contains(day)) put(day, Math.max(0, get(day) - 1));
+        return true;
+    }
+
+    /**
+     * Records or takes back an event whose day count changes separately, as when another
+     * process's changes are read back from disk.
+     */
+    public void applyEvent(long epochSecond, boolean removed) {
+        if (removed) {
+            if (!events.remove(epochSecond)) return;
+        } else {
+            events.add(epochSecond);
+        }
+        for (Listener l : listeners) l.eventChanged(epochSecond, removed);
+    }
+
+    /** Swaps in {@code loaded}'s events (it is left empty); the day counts stay as they are. */
+    public void replaceEvents(EventStore loaded) {
+        events.takeFrom(loaded);
+        for (Listener l : listeners) l.eventsReplaced();
+    }
+
+    /** Removes every entry, and every recorded event with them. */
+    public void clear() {
+        if (store.isEmpty()) return;
+        long first = store.firstDay(), last = store.lastDay();
+        store.clear();
+        events.clear();
+        aggregates.rebuild();
+        streaks.rebuild();
+        histogram.rebuild();
+        stats.rebuild(store);
+        for (Listener l : listeners) l.rangeCleared(first, last);
+    }
+
+    /** Copies every entry of {@code other} over this log. */
+    public void putAll(LogStore other) {
+        if (other.isEmpty()) return;
+        other.forEach(store::put);
+        aggregates.rebuild();
+        streaks.rebuild();
+        histogram.rebuild();
+        stats.rebuild(store);
+        long first = other.firstDay(), last = other.lastDay();
+        for (Listener l : listeners) l.rangeChanged(first, last);
+    }
+
+    /** Replaces the whole log with the content of {@code other} (e.g. a restored backup). */
+    public void replaceAll(LogStore other) {
+        long first = store.isEmpty() ? other.firstDay() : other.isEmpty() ? store.firstDay() : Math.min(store.firstDay(), other.firstDay());
+        long last = store.isEmpty() ? other.lastDay() : other.isEmpty() ? store.lastDay() : Math.max(store.lastDay(), other.lastDay());
+        if (first == LogStore.NONE) return; // both empty
+        store.clear();
+        other.forEach(store::put);
+        aggregates.rebuild();
+        streaks.rebuild();
+        histogram.rebuild();
+        stats.rebuild(store);
+        for (Listener l : listeners) l.rangeChanged(first, last);
+    }
+
+    /**
+     * Applies {@code updated} and announces the fields that actually changed. A new price, pack
+     * size or baseline takes effect from today; earlier days keep theirs (see {@link #setPrice}).
+     */
+    public void updateSettings(Settings updated) {
+        Set<String> changed = updated.diff(settings);
+        if (changed.isEmpty()) return;
+        settings.copyFrom(updated);
+        streaks.setQuitDay(settings.quitDate.toEpochDay());
+        if (changed.contains(Settings.PRICE_PER_PACK) || changed.contains(Settings.CIGS_PER_PACK) || changed.contains(Settings.BASELINE_PER_DAY)) {
+            PriceHistory.Segment s = new PriceHistory.Segment(LocalDate.now().toEpochDay(),
+                    updated.pricePerPack, updated.cigsPerPack, updated.baselinePerDay);
+            applyPrice(s.fromDay(), prices.put(s), s);
+        }
+        for (Listener l : listeners) l.settingsChanged(changed);
+    }
+
+    /**
+     * Puts a price into effect from {@code s.fromDay()} until the next one starts, replacing
+     * one starting that day. Only the days it covers are re-indexed and announced; the settings
+     * follow when it covers today.
+     */
+    public void setPrice(PriceHistory.Segment s) {
+        if (s.equals(prices.at(s.fromDay()))) return;
+        Settings before = settings.copy();
+        applyPrice(s.fromDay(), prices.put(s), s);
+        announceCurrentPrice(before);
+    }
+
+    /** Drops the price starting on {@code fromDay}, the one before taking over its days; false if there is none. */
+    public boolean removePrice(long fromDay) {
+        PriceHistory.Segment removed = prices.remove(fromDay);
+        if (removed == null) return false;
+        Settings before = settings.copy();
+        applyPrice(fromDay, removed, prices.at(fromDay));
+        announceCurrentPrice(before);
+        return true;
+    }
+
+    /** {@code [fromDay, end of now]} went from {@code before} to {@code now}. */
+    private void applyPrice(long fromDay, PriceHistory.Segment before, PriceHistory.Segment now) {
+        long toDay = prices.endOf(now);
+        aggregates.baselineChanged(fromDay, toDay, before.baselinePerDay(), now.baselinePerDay());
+        // Unlogged days show savings too (a full baseline day), so the calendar needs the whole segment
+        long lo = Math.max(fromDay, LocalDate.MIN.toEpochDay()), hi = Math.min(toDay, LocalDate.MAX.toEpochDay());
+        for (Listener l : listeners) l.pricesChanged(lo, hi);
+    }
+
+    private void announceCurrentPrice(Settings before) {
+        syncCurrentPrice();
+        Set<String> changed = settings.diff(before);
+        if (!changed.isEmpty()) for (Listener l : listeners) l.settingsChanged(changed);
+    }
+
+    /** Copies the price in effect today into the settings, which show the current one. */
+    private void syncCurrentPrice() {
+        PriceHistory.Segment s = prices.at(LocalDate.now().toEpochDay());
+        settings.pricePerPack = s.pricePerPack();
+        settings.cigsPerPack = s.cigsPerPack();
+        settings.baselinePerDay = s.baselinePerDay();
+    }
+
+    /**
+     * Rebuilds the indexes after the store, settings and prices were filled directly. Publishes
+     * nothing; meant for the initial load, before anyone listens. A history of one price is
+     * taken from the settings, which is all a store without {@code prices.csv} has.
+     */
+    public void reindex() {
+        if (prices.size() == 1) prices.reset(settings.pricePerPack, settings.cigsPerPack, settings.baselinePerDay);
+        else syncCurrentPrice();
+        aggregates.rebuild();
+        streaks.setQuitDay(settings.quitDate.toEpochDay());
+        streaks.rebuild();
+        histogram.rebuild();
+        stats.rebuild(store);
+    }
+
+    // ---------- Derived values ----------
+    public int currentStreak(long today) {
+        Telemetry.Compute c = Telemetry.compute("computeSmokeFreeStreak");
+        int streak = streaks.currentStreak(today);
+        c.end(store.size());
+        return streak;
+    }
+
+    /**
+     * Mean count over the logged days among the {@code days} days ending {@code today}, or NaN
+     * when none of them is logged. O(log n) from the range aggregates.
+     */
+    public double rollingMean(long today, int days) {
+        long from = today - days + 1;
+        long logged = aggregates.loggedDays(from, today);
+        return logged == 0 ? Double.NaN : (double) aggregates.cigs(from, today) / logged;
+    }
+
+    /** Money saved over the logged days only (the "Saved" total on Home), at each day's price. */
+    public double moneySavedTotal() {
+        if (store.isEmpty()) return 0;
+        Telemetry.Compute c = Telemetry.compute("computeMoneySavedTotal");
+        double[] saved = {0};
+        prices.forEach(store.firstDay(), store.lastDay(), (from, to, s) -> saved[0] += aggregates.avoided(from, to) * s.pricePerCig());
+        c.end(store.size());
+        return saved[0];
+    }
+
+    /**
+     * What {@link #moneySavedTotal()} would be under another baseline and price, from the count
+     * histogram alone: O(baseline), the log itself is not read. The histogram has no dates, so the
+     * one price applies to every logged day, whatever the {@link PriceHistory} says.
+     */
+    public double moneySavedTotal(int baseline, double pricePerCig) {
+        return histogram.avoided(baseline) * pricePerCig;
+    }
+
+    /** Like {@link #moneySavedTotal(int, double)}, over the logged days of {@code year}. */
+    public double moneySavedInYear(int year, int baseline, double pricePerCig) {
+        return histogram.avoided(year, baseline) * pricePerCig;
+    }
+
+    /**
+     * Money saved over every day in the range, a day without entry counting as a full baseline
+     * day. O(log n) per price segment the range crosses.
+     */
+    public double moneySaved(long fromDay, long toDay) {
+        double[] saved = {0};
+        prices.forEach(fromDay, toDay, (from, to, s) -> saved[0] += aggregates.avoidedAllDays(from, to, s.baselinePerDay()) * s.pricePerCig());
+        return saved[0];
+    }
+
+    /** Money saved on {@code epochDay} with {@code cigs} cigarettes, at that day's price. */
+    public double moneySavedOn(long epochDay, int cigs) {
+        PriceHistory.Segment s = prices.at(epochDay);
+        return Math.max(0, s.baselinePerDay() - cigs) * s.pricePerCig();
+    }
+}
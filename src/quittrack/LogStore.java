@@ -0,0 +1,155 @@
+package quittrack;
+
+import java.time.LocalDate;
+
+/**
+ * Daily cigarette counts keyed by {@link LocalDate#toEpochDay()}.
+ * Counts live in one growable {@code short[]} starting at {@code base};
+ * a bitmap tells logged days (even a logged 0) apart from days with no entry.
+ * Lookups are plain array indexing and never allocate.
+ */
+public class LogStore {
+    /** Returned by {@link #firstDay()}, {@link #lastDay()} and {@link #nextDay(long)} when there is no such day. */
+    public static final long NONE = Long.MIN_VALUE;
+    public static final int MAX_COUNT = Short.MAX_VALUE;
+
+    public interface DayVisitor {
+        void visit(long epochDay, int count);
+    }
+
+    private long base;                   // epoch day of counts[0], always a multiple of 64
+    private short[] counts = new short[0];
+    private long[] present = new long[0]; // one bit per slot
+    private int size;
+
+    public int get(long epochDay) {
+        long i = epochDay - base;
+        if (i < 0 || i >= counts.length) return 0;
+        return counts[(int) i];
+    }
+
+    public int get(LocalDate d) { return get(d.toEpochDay()); }
+
+    public boolean contains(long epochDay) {
+        long i = epochDay - base;
+        if (i < 0 || i >= counts.length) return false;
+        return (present[(int) (i >>> 6)] & (1L << i)) != 0;
+    }
+
+    /** Stores {@code count} for the day and returns the previous count, or -1 if the day had no entry. */
+    public int put(long epochDay, int count) {
+        if (count < 0 || count > MAX_COUNT) throw new IllegalArgumentException("Count out of range: " + count);
+        ensureCapacity(epochDay);
+        int i = (int) (epochDay - base);
+        int prev = -1;
+        if ((present[i >>> 6] & (1L << i)) != 0) prev = counts[i];
+        else { present[i >>> 6] |= 1L << i; size++; }
+        counts[i] = (short) count;
+        return prev;
+    }
+
+    /** Removes the day's entry and returns its count, or -1 if it had none. */
+    public int remove(long epochDay) {
+        if (!contains(epochDay)) return -1;
+        int i = (int) (epochDay - base);
+        int prev = counts[i];
+        counts[i] = 0;
+        present[i >>> 6] &= ~(1L << i);
+        size--;
+        return prev;
+    }
+
+    public void clear() {
+        counts = new short[0];
+        present = new long[0];
+        base = 0;
+        size = 0;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    /** First logged day at or after {@code fromDay}, or {@link #NONE}. */
+    public long nextDay(long fromDay) {
+        if (size == 0) return NONE;
+        if (fromDay >= base + counts.length) return NONE; // before subtracting: base may be negative
+        long start = fromDay <= base ? 0 : fromDay - base;
+        int w = (int) (start >>> 6);
+        long word = present[w] & (-1L << start);
+        while (true) {
+            if (word != 0) return base + ((long) w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w == present.length) return NONE;
+            word = present[w];
+        }
+    }
+
+    /** Last logged day at or before {@code toDay}, or {@link #NONE}. */
+    public long prevDay(long toDay) {
+        if (size == 0) return NONE;
+        if (toDay < base) return NONE;
+        long end = toDay >= base + counts.length ? counts.length - 1L : toDay - base;
+        int w = (int) (end >>> 6);
+        long word = present[w] & (-1L >>> (63 - (end & 63)));
+        while (true) {
+            if (word != 0) return base + ((long) w << 6) + 63 - Long.numberOfLeadingZeros(word);
+            if (--w < 0) return NONE;
+            word = present[w];
+        }
+    }
+
+    public long firstDay() { return nextDay(Long.MIN_VALUE + 1); }
+    public long lastDay() { return prevDay(Long.MAX_VALUE); }
+
+    public void forEach(DayVisitor v) {
+        forEachInRange(Long.MIN_VALUE + 1, Long.MAX_VALUE, v);
+    }
+
+    /** Visits logged days in {@code [fromDay, toDay]} in ascending order. */
+    public void forEachInRange(long fromDay, long toDay, DayVisitor v) {
+        for (long d = nextDay(fromDay); d != NONE && d <= toDay; d = nextDay(d + 1)) {
+            v.visit(d, counts[(int) (d - base)]);
+        }
+    }
+
+    private void ensureCapacity(long day) {
+        if (counts.length == 0) {
+            base = Math.floorDiv(day, 64) * 64 - 64 * 5; // a little room for back-filled days
+            counts = new short[64 * 8];
+            present = new long[8];
+            return;
+        }
+        long end = base + counts.length;
+        if (day >= base && day < end) return;
+
+        long newBase = base;
+        long newEnd = end;
+        if (day < base) newBase = Math.min(Math.floorDiv(day, 64) * 64, base - counts.length);
+        else newEnd = Math.max(Math.floorDiv(day, 64) * 64 + 64, end + counts.length);
+        long len = newEnd - newBase;
+        if (len > Integer.MAX_VALUE - 64) throw new IllegalArgumentException("Day out of supported range: " + day);
+
+        short[] c = new short[(int) len];
+        long[] p = new long[(int) (len >>> 6)];
+        int off = (int) (base - newBase);
+        System.arraycopy(counts, 0, c, off, counts.length);
+        System.arraycopy(present, 0, p, off >>> 6, present.length);
+        counts = c;
+        present = p;
+        base = newBase;
+    }
+
+    /** Independent copy, e.g. to hand a consistent snapshot to another thread. */
+    public LogStore copy() {
+        LogStore s = new LogStore();
+        s.base = base;
+        s.counts = counts.clone();
+        s.present = present.clone();
+        s.size = size;
+        return s;
+    }
+
+    @Override
+    public String toString() {
+        return "LogStore{size=" + size + ", base=" + base + ", capacity=" + counts.length + "}";
+    }
+}
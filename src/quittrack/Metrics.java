@@ -0,0 +1,112 @@
+package quittrack;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters and timers, cheap enough to leave on. {@link Telemetry} feeds one timer
+ * per operation plus byte, row and error counters; the whole registry can be printed or written
+ * to a file, by hand or at exit with {@code --metrics} / {@code --metrics-file <path>}.
+ */
+public final class Metrics {
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+
+    private Metrics() {}
+
+    public static void count(String name, long n) {
+        counters.computeIfAbsent(name, k -> new LongAdder()).add(n);
+    }
+
+    public static void time(String name, long nanos) {
+        timers.computeIfAbsent(name, k -> new LatencyHistogram()).record(nanos);
+    }
+
+    public static long counter(String name) {
+        LongAdder a = counters.get(name);
+        return a == null ? 0 : a.sum();
+    }
+
+    /** The timer for {@code name}, or null if nothing was recorded under it yet. */
+    public static LatencyHistogram timer(String name) {
+        return timers.get(name);
+    }
+
+    public static void reset() {
+        counters.values().forEach(LongAdder::reset);
+        timers.values().forEach(LatencyHistogram::reset);
+    }
+
+    /** Timers (count, mean, p50, p99, max in ms) then counters, each sorted by name. */
+    public static List<String> report() {
+        List<String> out = new ArrayList<>();
+        out.add(String.format("%-28s %8s %10s %10s %10s %10s", "timer", "count", "mean ms", "p50 ms", "p99 ms", "max ms"));
+        new TreeMap<>(timers).forEach((name, h) -> out.add(String.format(Locale.US, "%-28s %8d %10.3f %10.3f %10.3f %10.3f",
+                name, h.count(), h.meanNanos() / 1e6, h.percentileNanos(0.50) / 1e6, h.percentileNanos(0.99) / 1e6, h.maxNanos() / 1e6)));
+        out.add("");
+        out.add(String.format("%-28s %14s", "counter", "value"));
+        new TreeMap<>(counters).forEach((name, a) -> out.add(String.format("%-28s %14d", name, a.sum())));
+        return out;
+    }
+
+    public static void print(PrintStream out) {
+        report().forEach(out::println);
+    }
+
+    public static void dump(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# QuitTrack metrics " + LocalDateTime.now());
+        lines.addAll(report());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, lines);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Takes {@code --metrics} (print to stdout at exit) and {@code --metrics-file <path>} (write
+     * there at exit) out of {@code args}; returns the remaining arguments. Throws
+     * {@link IllegalArgumentException} with a usage message when the path is missing.
+     */
+    static String[] fromArgs(String[] args) {
+        List<String> rest = new ArrayList<>();
+        boolean print = false;
+        Path file = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--metrics" -> print = true;
+                case "--metrics-file" -> {
+                    if (i + 1 >= args.length) throw new IllegalArgumentException("Usage: --metrics-file <path>");
+                    file = Paths.get(args[++i]);
+                }
+                default -> rest.add(args[i]);
+            }
+        }
+        if (print || file != null) {
+            boolean toStdout = print;
+            Path toFile = file;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                if (toStdout) print(System.out);
+                if (toFile != null) {
+                    try {
+                        dump(toFile);
+                    } catch (IOException e) {
+                        System.err.println("Could not write metrics to " + toFile + ": " + e.getMessage());
+                    }
+                }
+            }, "quittrack-metrics-dump"));
+        }
+        return rest.toArray(new String[0]);
+    }
+}
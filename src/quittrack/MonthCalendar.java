@@ -0,0 +1,170 @@
+package quittrack;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One month grid (a weekday header row plus six week rows), painted directly in
+ * {@link #paintComponent} instead of out of ~50 child components.
+ * Each month's cell text is built once into a {@link MonthModel} and kept in a small LRU
+ * cache, so paging back and forth through months allocates next to nothing.
+ * Call {@link #invalidateDay} when a day changes and {@link #invalidateAll} when anything
+ * that affects every cell (prices, currency, a bulk import) changes.
+ */
+public class MonthCalendar extends JComponent {
+    /** Where cell values come from. */
+    public interface Source {
+        int cigs(long epochDay);
+        /** Text of the "Saved: …" line for {@code epochDay} with {@code cigs} cigarettes. */
+        String savedText(long epochDay, int cigs);
+    }
+
+    private static final String[] WEEKDAYS = {"Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat"};
+    private static final int CACHED_MONTHS = 12;
+    private static final int GAP = 4;
+    private static final int PAD = 4;
+    private static final Color GAP_COLOR = Color.DARK_GRAY;
+    private static final Color HEADER_BG = new Color(230, 230, 230);
+    private static final Color TODAY_BG = new Color(200, 230, 255);
+
+    private final Source source;
+    private final Map<YearMonth, MonthModel> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<YearMonth, MonthModel> eldest) {
+            return size() > CACHED_MONTHS;
+        }
+    };
+    private YearMonth month = YearMonth.now();
+
+    private Font headerFont, dayFont, dataFont;
+
+    public MonthCalendar(Source source) {
+        this.source = source;
+        setOpaque(true);
+        setPreferredSize(new Dimension(7 * 100 + 6 * GAP, 7 * 70 + 6 * GAP));
+        updateFonts();
+    }
+
+    public YearMonth getMonth() { return month; }
+
+    public void setMonth(YearMonth month) {
+        this.month = month;
+        repaint();
+    }
+
+    public void invalidateDay(long epochDay) {
+        YearMonth ym = YearMonth.from(LocalDate.ofEpochDay(epochDay));
+        if (cache.remove(ym) != null && ym.equals(month)) repaint();
+    }
+
+    /** Drops the cached months overlapping {@code [fromDay, toDay]}. */
+    public void invalidateRange(long fromDay, long toDay) {
+        YearMonth first = YearMonth.from(LocalDate.ofEpochDay(fromDay));
+        YearMonth last = YearMonth.from(LocalDate.ofEpochDay(toDay));
+        cache.keySet().removeIf(ym -> !ym.isBefore(first) && !ym.isAfter(last));
+        if (!month.isBefore(first) && !month.isAfter(last)) repaint();
+    }
+
+    public void invalidateAll() {
+        cache.clear();
+        repaint();
+    }
+
+    @Override
+    public void updateUI() {
+        super.updateUI();
+        updateFonts();
+    }
+
+    private void updateFonts() {
+        Font base = UIManager.getFont("Label.font");
+        if (base == null) base = new Font(Font.SANS_SERIF, Font.PLAIN, 12);
+        headerFont = base.deriveFont(Font.BOLD, 12f);
+        dayFont = base.deriveFont(Font.BOLD, 14f);
+        dataFont = base.deriveFont(11f);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g0) {
+        Graphics2D g = (Graphics2D) g0;
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        int w = getWidth(), h = getHeight();
+        g.setColor(GAP_COLOR);
+        g.fillRect(0, 0, w, h);
+
+        MonthModel m = cache.computeIfAbsent(month, this::buildModel);
+        int cellW = (w - 6 * GAP) / 7;
+        int cellH = (h - 6 * GAP) / 7;
+        FontMetrics hfm = g.getFontMetrics(headerFont);
+        FontMetrics dfm = g.getFontMetrics(dayFont);
+        FontMetrics sfm = g.getFontMetrics(dataFont);
+
+        for (int col = 0; col < 7; col++) {
+            int x = col * (cellW + GAP);
+            paintCell(g, x, 0, cellW, cellH, HEADER_BG);
+            g.setFont(headerFont);
+            int tx = x + (cellW - hfm.stringWidth(WEEKDAYS[col])) / 2;
+            g.drawString(WEEKDAYS[col], tx, (cellH - hfm.getHeight()) / 2 + hfm.getAscent());
+        }
+
+        long today = LocalDate.now().toEpochDay();
+        for (int cell = 0; cell < 42; cell++) {
+            int x = (cell % 7) * (cellW + GAP);
+            int y = (cell / 7 + 1) * (cellH + GAP);
+            int day = cell - m.startDow; // 0-based day of month
+            if (day < 0 || day >= m.length) {
+                paintCell(g, x, y, cellW, cellH, Color.WHITE);
+                continue;
+            }
+            paintCell(g, x, y, cellW, cellH, m.firstDay + day == today ? TODAY_BG : Color.WHITE);
+            g.setColor(getForeground());
+            int ty = y + PAD + dfm.getAscent();
+            g.setFont(dayFont);
+            g.drawString(m.dayText[day], x + PAD, ty);
+            g.setFont(dataFont);
+            ty += dfm.getDescent() + sfm.getAscent();
+            g.drawString(m.cigsText[day], x + PAD, ty);
+            ty += sfm.getHeight();
+            g.drawString(m.savedText[day], x + PAD, ty);
+        }
+    }
+
+    private void paintCell(Graphics2D g, int x, int y, int w, int h, Color bg) {
+        g.setColor(bg);
+        g.fillRect(x, y, w, h);
+        g.setColor(Color.BLACK);
+        g.drawRect(x, y, w - 1, h - 1);
+        g.setColor(getForeground());
+    }
+
+    private MonthModel buildModel(YearMonth ym) {
+        MonthModel m = new MonthModel();
+        LocalDate first = ym.atDay(1);
+        m.firstDay = first.toEpochDay();
+        m.startDow = first.getDayOfWeek().getValue() % 7; // Sunday=0
+        m.length = ym.lengthOfMonth();
+        m.dayText = new String[m.length];
+        m.cigsText = new String[m.length];
+        m.savedText = new String[m.length];
+        for (int i = 0; i < m.length; i++) {
+            int cigs = source.cigs(m.firstDay + i);
+            m.dayText[i] = String.valueOf(i + 1);
+            m.cigsText[i] = "Cigs: " + cigs;
+            m.savedText[i] = "Saved: " + source.savedText(m.firstDay + i, cigs);
+        }
+        return m;
+    }
+
+    /** Everything needed to paint one month, computed once per cache fill. */
+    private static final class MonthModel {
+        long firstDay;
+        int startDow;
+        int length;
+        String[] dayText;
+        String[] cigsText;
+        String[] savedText;
+    }
+}
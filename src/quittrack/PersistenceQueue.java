@@ -0,0 +1,328 @@
+package quittrack;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.*;
+
+/**
+ * Write-behind queue between the UI and the files in {@code ~/.quittrack}.
+ * Mutations are handed over from the EDT and written on one background thread. Pending
+ * writes are coalesced: the latest value per day wins, a clear or full replace drops whatever
+ * came before it, and only the newest settings snapshot is written. Recorded events are
+ * appended in order, and only the newest price history is written. A flush forces the journal
+ * and event file once, after all its appends (a group commit), and only then reports back
+ * through the {@link Listener}. What is queued or being written can be asked, so a change read
+ * from disk is not applied over a newer local one.
+ */
+public class PersistenceQueue {
+    /** Called on the persistence thread; hop to the EDT before touching Swing. */
+    public interface Listener {
+        void flushed(String summary);
+        void failed(String message);
+    }
+
+    private static final long COALESCE_MILLIS = 200;
+    private static final long RETRY_MILLIS = 5000;
+    private static final int REMOVE = -1;
+
+    private record EventOp(long epochSecond, boolean remove) {}
+
+    private final LogJournal journal;
+    private final EventFile events;
+    private final Path settingsFile;
+    private final Path pricesFile;
+    private final Listener listener;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "quittrack-persist");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Guarded by this
+    private boolean clearPending;
+    private LogStore replacePending;
+    private LinkedHashMap<Long, Integer> days = new LinkedHashMap<>();
+    private boolean clearEventsPending;
+    private List<EventOp> eventOps = new ArrayList<>();
+    private Properties settingsPending;
+    private PriceHistory pricesPending;
+    private boolean flushScheduled;
+    private Set<Long> daysWriting = Set.of();        // the flush in progress
+    private boolean logsWriting, settingsWriting, pricesWriting;
+
+    /**
+     * {@code journal} and {@code events} may be null when their file could not be opened; writes
+     * to it then fail and are retried.
+     */
+    public PersistenceQueue(LogJournal journal, EventFile events, Path settingsFile, Path pricesFile, Listener listener) {
+        this.journal = journal;
+        this.events = events;
+        this.settingsFile = settingsFile;
+        this.pricesFile = pricesFile;
+        this.listener = listener;
+    }
+
+    public synchronized void put(long epochDay, int count) {
+        days.put(epochDay, count);
+        schedule(COALESCE_MILLIS);
+    }
+
+    public synchronized void remove(long epochDay) {
+        days.put(epochDay, REMOVE);
+        schedule(COALESCE_MILLIS);
+    }
+
+    /** Clears the log and the recorded events. */
+    public synchronized void clear() {
+        days.clear();
+        replacePending = null;
+        clearPending = true;
+        eventOps.clear();
+        clearEventsPending = true;
+        schedule(COALESCE_MILLIS);
+    }
+
+    public synchronized void appendEvent(long epochSecond) {
+        eventOps.add(new EventOp(epochSecond, false));
+        schedule(COALESCE_MILLIS);
+    }
+
+    public synchronized void removeEvent(long epochSecond) {
+        eventOps.add(new EventOp(epochSecond, true));
+        schedule(COALESCE_MILLIS);
+    }
+
+    /** Replaces the whole log with {@code snapshot}, which must not be modified afterwards. */
+    public synchronized void replaceAll(LogStore snapshot) {
+        days.clear();
+        clearPending = false;
+        replacePending = snapshot;
+        schedule(COALESCE_MILLIS);
+    }
+
+    public synchronized void saveSettings(Properties snapshot) {
+        settingsPending = snapshot;
+        schedule(COALESCE_MILLIS);
+    }
+
+    /** Writes {@code snapshot}, which must not be modified afterwards, as the price history. */
+    public synchronized void savePrices(PriceHistory snapshot) {
+        pricesPending = snapshot;
+        schedule(COALESCE_MILLIS);
+    }
+
+    /** True while a local change to {@code epochDay} is queued or being written. */
+    public synchronized boolean isPending(long epochDay) {
+        return clearPending || replacePending != null || logsWriting || days.containsKey(epochDay) || daysWriting.contains(epochDay);
+    }
+
+    public synchronized boolean isSettingsPending() {
+        return settingsPending != null || settingsWriting;
+    }
+
+    public synchronized boolean isPricesPending() {
+        return pricesPending != null || pricesWriting;
+    }
+
+    /** Writes everything still pending and stops the writer thread. Blocks for at most {@code timeoutMillis}. */
+    public void close(long timeoutMillis) throws InterruptedException {
+        writer.execute(this::flush);
+        writer.shutdown();
+        writer.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void schedule(long delayMillis) {
+        if (flushScheduled || writer.isShutdown()) return;
+        flushScheduled = true;
+        writer.schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void flush() {
+        try {
+            writePending();
+        } finally {
+            synchronized (this) {
+                daysWriting = Set.of();
+                logsWriting = settingsWriting = pricesWriting = false;
+            }
+        }
+    }
+
+    private void writePending() {
+        boolean clear;
+        LogStore replace;
+        LinkedHashMap<Long, Integer> batch;
+        boolean clearEvents;
+        List<EventOp> ops;
+        Properties props;
+        PriceHistory prices;
+        synchronized (this) {
+            flushScheduled = false;
+            clear = clearPending;
+            replace = replacePending;
+            batch = days;
+            clearEvents = clearEventsPending;
+            ops = eventOps;
+            props = settingsPending;
+            prices = pricesPending;
+            clearPending = false;
+            replacePending = null;
+            days = new LinkedHashMap<>();
+            clearEventsPending = false;
+            eventOps = new ArrayList<>();
+            settingsPending = null;
+            pricesPending = null;
+            daysWriting = Set.copyOf(batch.keySet());
+            logsWriting = clear || replace != null;
+            settingsWriting = props != null;
+            pricesWriting = prices != null;
+        }
+        if (!clear && replace == null && batch.isEmpty() && !clearEvents && ops.isEmpty() && props == null && prices == null) return;
+
+        String summary = summary(replace != null, clear, batch.size(), ops.size(), props != null, prices != null);
+        if (clearEvents || !ops.isEmpty()) {
+            Telemetry.Io io = Telemetry.begin("saveEvents", events == null ? null : events.path());
+            long before = events == null ? 0 : events.bytesWritten();
+            int written = 0;
+            try {
+                if (events == null) throw new IOException("Event file is not open");
+                if (clearEvents) events.clear();
+                clearEvents = false;
+                for (EventOp op : ops) {
+                    if (op.remove()) events.appendRemove(op.epochSecond());
+                    else events.append(op.epochSecond());
+                    written++;
+                }
+                events.sync(); // appended events are not requeued if this fails: a second append would double them
+            } catch (IOException | RuntimeException ex) {
+                io.failed(ex);
+                requeueEvents(clearEvents, ops.subList(written, ops.size()));
+                requeue(clear, replace, batch, 0, props, prices);
+                listener.failed(ex.getMessage());
+                return;
+            } finally {
+                if (events != null) io.written(events.bytesWritten() - before);
+                io.rows(written);
+                io.end();
+            }
+        }
+        if (replace != null || clear || !batch.isEmpty()) {
+            Telemetry.Io io = Telemetry.begin("saveLogs", journal == null ? null : journal.path());
+            long before = journal == null ? 0 : journal.bytesWritten();
+            int written = 0;
+            try {
+                if (journal == null) throw new IOException("Log file is not open");
+                if (replace != null) {
+                    journal.replaceAll(replace);
+                    io.rows(replace.size());
+                }
+                if (clear) journal.appendClear();
+                replace = null;
+                clear = false;
+                for (Map.Entry<Long, Integer> e : batch.entrySet()) {
+                    if (e.getValue() == REMOVE) journal.appendRemove(e.getKey());
+                    else journal.appendPut(e.getKey(), e.getValue());
+                }
+                journal.sync(); // a failed force puts the whole batch back; writing a day again is harmless
+                written = batch.size();
+                batch.clear();
+            } catch (IOException | RuntimeException ex) {
+                io.failed(ex);
+                requeue(clear, replace, batch, written, props, prices);
+                listener.failed(ex.getMessage());
+                return;
+            } finally {
+                if (journal != null) io.written(journal.bytesWritten() - before);
+                io.rows(written);
+                io.end();
+            }
+        }
+        if (props != null || prices != null) {
+            try {
+                if (prices != null) writePrices(prices);
+                prices = null;
+                if (props != null) writeSettings(props);
+            } catch (IOException | RuntimeException ex) {
+                requeue(false, null, batch, 0, props, prices);
+                listener.failed(ex.getMessage());
+                return;
+            }
+        }
+        listener.flushed(summary);
+    }
+
+    /** Puts back the event writes a failed flush did not get to, ahead of newer ones. */
+    private synchronized void requeueEvents(boolean clear, List<EventOp> ops) {
+        if (clearEventsPending) return; // superseded
+        List<EventOp> merged = new ArrayList<>(ops);
+        merged.addAll(eventOps);
+        eventOps = merged;
+        clearEventsPending = clear;
+    }
+
+    /** Puts back whatever a failed flush did not write, unless newer writes superseded it. */
+    private synchronized void requeue(boolean clear, LogStore replace, LinkedHashMap<Long, Integer> batch,
+                                      int written, Properties props, PriceHistory prices) {
+        boolean superseded = clearPending || replacePending != null;
+        if (!superseded) {
+            LinkedHashMap<Long, Integer> merged = new LinkedHashMap<>();
+            int skip = written;
+            for (Map.Entry<Long, Integer> e : batch.entrySet()) {
+                if (skip-- > 0) continue;
+                merged.put(e.getKey(), e.getValue());
+            }
+            merged.putAll(days);
+            days = merged;
+            clearPending = clear;
+            replacePending = replace;
+        }
+        if (settingsPending == null) settingsPending = props;
+        if (pricesPending == null) pricesPending = prices;
+        schedule(RETRY_MILLIS);
+    }
+
+    private void writeSettings(Properties props) throws IOException {
+        Telemetry.io("saveSettings", settingsFile, io -> {
+            Path tmp = settingsFile.resolveSibling(settingsFile.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                props.store(out, "QuitTrack settings");
+            }
+            io.written(Files.size(tmp));
+            io.rows(props.size());
+            Files.move(tmp, settingsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return null;
+        });
+    }
+
+    private void writePrices(PriceHistory prices) throws IOException {
+        Telemetry.io("savePrices", pricesFile, io -> {
+            Path tmp = pricesFile.resolveSibling(pricesFile.getFileName() + ".tmp");
+            prices.write(tmp);
+            io.written(Files.size(tmp));
+            io.rows(prices.size());
+            Files.move(tmp, pricesFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return null;
+        });
+    }
+
+    private static String summary(boolean replaced, boolean cleared, int days, int events, boolean settings, boolean prices) {
+        StringJoiner j = new StringJoiner(", ");
+        if (replaced) j.add("all logs");
+        if (cleared) j.add("cleared logs");
+        if (days > 0) j.add(days == 1 ? "1 day" : days + " days");
+        if (events > 0) j.add(events == 1 ? "1 event" : events + " events");
+        if (settings) j.add("settings");
+        if (prices) j.add("prices");
+        return j.toString();
+    }
+}
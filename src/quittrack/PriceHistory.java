@@ -0,0 +1,149 @@
+package quittrack;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pack price, pack size and baseline as effective-dated segments: each holds from its start day
+ * until the next one starts, the first from the beginning of time. Finding the segment of a day
+ * is a floor lookup, and a range splits into at most one piece per segment, so savings are
+ * summed per piece from range aggregates instead of day by day.
+ * <p>
+ * Stored next to {@code settings.properties} as {@code from,pricePerPack,cigsPerPack,baselinePerDay}
+ * lines, {@code *} being the first segment's start.
+ */
+public class PriceHistory {
+    public static final long BEGINNING = Long.MIN_VALUE;
+    public static final long END = Long.MAX_VALUE;
+    private static final String HEADER = "from,pricePerPack,cigsPerPack,baselinePerDay";
+
+    public record Segment(long fromDay, double pricePerPack, int cigsPerPack, int baselinePerDay) {
+        public double pricePerCig() {
+            return cigsPerPack > 0 ? pricePerPack / cigsPerPack : 0.0;
+        }
+
+        public boolean samePrice(Segment o) {
+            return pricePerPack == o.pricePerPack && cigsPerPack == o.cigsPerPack && baselinePerDay == o.baselinePerDay;
+        }
+    }
+
+    public interface SegmentVisitor {
+        /** {@code [fromDay, toDay]} is the part of the visited range under {@code s}. */
+        void visit(long fromDay, long toDay, Segment s);
+    }
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    public PriceHistory() {
+        Settings d = new Settings();
+        reset(d.pricePerPack, d.cigsPerPack, d.baselinePerDay);
+    }
+
+    /** One segment covering all of history. */
+    public void reset(double pricePerPack, int cigsPerPack, int baselinePerDay) {
+        segments.clear();
+        segments.put(BEGINNING, new Segment(BEGINNING, pricePerPack, cigsPerPack, baselinePerDay));
+    }
+
+    public int size() { return segments.size(); }
+
+    public List<Segment> segments() { return new ArrayList<>(segments.values()); }
+
+    /** The segment in effect on {@code epochDay}. */
+    public Segment at(long epochDay) {
+        return segments.floorEntry(epochDay).getValue();
+    }
+
+    /** Last day of {@code s}, or {@link #END} for the newest one. */
+    public long endOf(Segment s) {
+        Long next = segments.higherKey(s.fromDay());
+        return next == null ? END : next - 1;
+    }
+
+    /**
+     * Puts {@code s} into effect from its start day, replacing a segment starting that day.
+     * Only {@code [s.fromDay(), endOf(s)]} changes; returns what was in effect there before.
+     */
+    public Segment put(Segment s) {
+        Segment before = at(s.fromDay());
+        segments.put(s.fromDay(), s);
+        return before;
+    }
+
+    /**
+     * Removes the segment starting on {@code fromDay}; the one before it extends over its days.
+     * Returns the removed segment, or null when none starts that day. The first segment stays.
+     */
+    public Segment remove(long fromDay) {
+        if (fromDay == BEGINNING) throw new IllegalArgumentException("The first price cannot be removed");
+        return segments.remove(fromDay);
+    }
+
+    /** Visits the pieces of {@code [fromDay, toDay]} under each segment, in order. */
+    public void forEach(long fromDay, long toDay, SegmentVisitor v) {
+        if (toDay < fromDay) return;
+        Map.Entry<Long, Segment> e = segments.floorEntry(fromDay);
+        while (e != null && e.getKey() <= toDay) {
+            Map.Entry<Long, Segment> next = segments.higherEntry(e.getKey());
+            long end = next == null ? END : next.getKey() - 1;
+            v.visit(Math.max(fromDay, e.getKey()), Math.min(toDay, end), e.getValue());
+            e = next;
+        }
+    }
+
+    public PriceHistory copy() {
+        PriceHistory h = new PriceHistory();
+        h.copyFrom(this);
+        return h;
+    }
+
+    public void copyFrom(PriceHistory o) {
+        segments.clear();
+        segments.putAll(o.segments);
+    }
+
+    // ---------- File ----------
+    public static PriceHistory read(Path p) throws IOException {
+        PriceHistory h = new PriceHistory();
+        h.segments.clear();
+        int lineNo = 0;
+        for (String line : Files.readAllLines(p)) {
+            lineNo++;
+            line = line.trim();
+            if (line.isEmpty() || line.equals(HEADER)) continue;
+            String[] f = line.split(",");
+            try {
+                if (f.length != 4) throw new IllegalArgumentException("expected 4 fields");
+                long from = f[0].equals("*") ? BEGINNING : LocalDate.parse(f[0]).toEpochDay();
+                h.segments.put(from, new Segment(from, Double.parseDouble(f[1]), Integer.parseInt(f[2]), Integer.parseInt(f[3])));
+            } catch (RuntimeException e) {
+                throw new IOException(p.getFileName() + " line " + lineNo + ": " + e.getMessage(), e);
+            }
+        }
+        if (!h.segments.containsKey(BEGINNING)) {
+            if (h.segments.isEmpty()) throw new IOException(p.getFileName() + " has no prices");
+            Segment first = h.segments.remove(h.segments.firstKey()); // the oldest price reaches back
+            h.segments.put(BEGINNING, new Segment(BEGINNING, first.pricePerPack(), first.cigsPerPack(), first.baselinePerDay()));
+        }
+        return h;
+    }
+
+    public void write(Path p) throws IOException {
+        try (BufferedWriter bw = Files.newBufferedWriter(p)) {
+            bw.write(HEADER);
+            bw.newLine();
+            for (Segment s : segments.values()) {
+                bw.write((s.fromDay() == BEGINNING ? "*" : LocalDate.ofEpochDay(s.fromDay()).toString())
+                        + "," + s.pricePerPack() + "," + s.cigsPerPack() + "," + s.baselinePerDay());
+                bw.newLine();
+            }
+        }
+    }
+}
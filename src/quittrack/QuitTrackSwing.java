@@ -0,0 +1,1341 @@
+package quittrack;
+
+import javax.swing.*;
+import javax.swing.border.*;
+import javax.swing.table.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+
+public class QuitTrackSwing extends JFrame {
+    private static final Logger LOG = Logger.getLogger(QuitTrackSwing.class.getName());
+
+    private static final String APP_DIR = System.getProperty("user.home") + File.separator + ".quittrack";
+    private static final String LOG_BIN = APP_DIR + File.separator + "logs.bin"; // one short per day, see LogFile
+    private static final String LOG_JOURNAL = APP_DIR + File.separator + "logs.journal"; // mutations not yet checkpointed into logs.bin
+    private static final String LOG_CSV = APP_DIR + File.separator + "logs.csv"; // date,cigs (pre-logs.bin format)
+    private static final String EVENTS_BIN = APP_DIR + File.separator + "events.bin"; // one timestamp per cigarette, see EventFile
+    private static final String SETTINGS_PROP = APP_DIR + File.separator + "settings.properties";
+    private static final String PRICES_CSV = APP_DIR + File.separator + "prices.csv"; // effective-dated prices, see PriceHistory
+    private static final String BACKUP_DIR = APP_DIR + File.separator + "backups";
+
+    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("HH:mm");
+
+    // ---------- Data Models ----------
+    private final LogModel model = new LogModel(); // every change goes through here
+    private final LogStore logs = model.store();
+    private final Settings settings = model.settings();
+    private LogJournal journal;
+    private EventFile events;
+    private PersistenceQueue persistence;
+    private BackupStore backups;
+    private DiskWatcher diskWatcher;
+    private boolean applyingFromDisk; // model changes read back from disk are not written again
+
+    // ---------- Startup ----------
+    private final StartupTimer startup;
+    private boolean dataLoaded;
+    private boolean firstPaint;
+    private final java.util.List<JMenuItem> dataActions = new ArrayList<>(); // enabled once logs are loaded
+
+    // ---------- UI Components ----------
+    private JTabbedPane tabs;
+    private final Map<Component, Supplier<JComponent>> lazyTabs = new HashMap<>(); // placeholder -> builder
+    private JSpinner spinnerToday;
+    private JLabel lblLastEvent;
+    private JLabel lblStreak;
+    private JLabel lblSaved;
+    private JLabel lblStatus;
+
+    // Weekly table
+    private JTable tblWeekly;
+    private WeeklyTableModel weeklyModel;
+
+    // Streaks tab
+    private JTable tblStreaks;
+    private JLabel lblLongestStreak;
+
+    // Charts tab
+    private JComboBox<String> cbChartMode;
+    private TrendCharts charts;
+
+    // Insights tab
+    private JLabel[] lblRolling;
+    private JLabel lblDistribution;
+    private JProgressBar[] dowBars;
+    private JLabel lblTrend;
+    private JLabel lblProjection;
+
+    // Settings tab
+    private Runnable refreshWhatIf;
+    private JTable tblPrices;
+
+    public static void main(String[] args) throws IOException {
+        try {
+            args = Metrics.fromArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+        if (args.length > 0 && args[0].equals("--service")) { // headless, see TrackerHttpServer
+            TrackerHttpServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        StartupTimer startup = new StartupTimer();
+        EdtMonitor.install();
+        SwingUtilities.invokeLater(() -> {
+            long t = System.nanoTime();
+            setNiceLAF();
+            startup.phase("laf", t);
+            new QuitTrackSwing(startup).setVisible(true);
+        });
+    }
+
+    public QuitTrackSwing() {
+        this(new StartupTimer());
+    }
+
+    private QuitTrackSwing(StartupTimer startup) {
+        super("QuitTrack — Swing");
+        this.startup = startup;
+        long t = System.nanoTime();
+        buildUI(); // tabs stay placeholders until the data is in
+        startup.phase("frame", t);
+        updateStatus("Loading…");
+        loadInBackground();
+    }
+
+    /** Settings and logs are read off the EDT; the selected tab is built once they are in. */
+    private void loadInBackground() {
+        new SwingWorker<Void, Void>() {
+            @Override protected Void doInBackground() {
+                long t = System.nanoTime();
+                ensureAppFolders();
+                loadSettings();
+                startup.phase("settings", t);
+                t = System.nanoTime();
+                loadLogs();
+                startup.phase("logs", t);
+                return null;
+            }
+
+            @Override protected void done() {
+                try {
+                    get();
+                } catch (ExecutionException e) {
+                    // Without the journal and the persistence queue every edit would be lost; keep the data actions off.
+                    updateStatus("Loading failed");
+                    showError("Failed to load your data: " + e.getCause().getMessage());
+                    return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                dataLoaded = true;
+                long t = System.nanoTime();
+                buildSelectedTab();
+                startup.phase("first tab", t);
+                for (JMenuItem item : dataActions) item.setEnabled(true);
+                if (diskWatcher != null) diskWatcher.start();
+                updateStatus("Ready");
+                startup.mark("ready");
+                if (firstPaint) startup.log();
+                showMotivationIfEnabled();
+            }
+        }.execute();
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        if (!firstPaint) {
+            firstPaint = true;
+            startup.mark("first paint");
+            if (dataLoaded) startup.log();
+        }
+    }
+
+    // ---------- UI Construction ----------
+    private void buildUI() {
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override public void windowClosing(WindowEvent e) { closeLogs(); }
+            @Override public void windowClosed(WindowEvent e) { closeLogs(); }
+        });
+        setSize(1040, 680);
+        setLocationRelativeTo(null);
+        setJMenuBar(buildMenuBar());
+
+        JPanel root = new JPanel(new BorderLayout());
+        root.add(buildHeader(), BorderLayout.NORTH);
+
+        tabs = new JTabbedPane();
+        addLazyTab("Home", () -> {
+            JPanel home = buildHomePanel();
+            refreshComputedLabels();
+            return refreshOnChange(home, "Home refresh", HOME_SETTINGS, (from, to, changed) -> refreshComputedLabels());
+        });
+        // Prices arrive as day ranges; only the currency (every cell) and the baseline (the heatmap's scale) repaint all
+        addLazyTab("Calendar", () -> refreshOnChange(buildCalendarPanel(), "Calendar refresh", Set.of(Settings.CURRENCY, Settings.BASELINE_PER_DAY), (from, to, changed) -> {
+            if (changed.contains(Settings.CURRENCY)) calendar.invalidateAll();
+            if (!changed.isEmpty()) heatmap.invalidateAll();
+            if (from == LogStore.NONE) return;
+            if (from == to) {
+                calendar.invalidateDay(from);
+                heatmap.invalidateDay(from);
+            } else {
+                calendar.invalidateRange(from, to);
+                heatmap.invalidateRange(from, to);
+            }
+        }));
+        addLazyTab("Weekly", () -> refreshOnChange(buildWeeklyPanel(), "Weekly refresh", Set.of(), (from, to, changed) -> weeklyModel.daysChanged(from, to)));
+        addLazyTab("Streaks", () -> refreshOnChange(buildStreaksPanel(), "Streaks refresh", Set.of(Settings.QUIT_DATE), (from, to, changed) -> refreshStreaksTable()));
+        addLazyTab("Charts", () -> refreshOnChange(buildChartsPanel(), "Chart refresh", Set.of(Settings.CURRENCY), (from, to, changed) -> {
+            if (changed.isEmpty() && from == to) charts.dayChanged(from);
+            else charts.reloadAll();
+        }));
+        addLazyTab("Insights", () -> refreshOnChange(buildInsightsPanel(), "Insights refresh", Set.of(), (from, to, changed) -> refreshInsights()));
+        addLazyTab("Settings", () -> refreshOnChange(buildSettingsPanel(), "Settings refresh", Settings.SAVINGS_FIELDS, (from, to, changed) -> {
+            refreshWhatIf.run();
+            refreshPriceTable();
+        }));
+        tabs.addChangeListener(e -> EdtMonitor.time("Tab switch", this::buildSelectedTab));
+        root.add(tabs, BorderLayout.CENTER);
+
+        root.add(buildStatusBar(), BorderLayout.SOUTH);
+        setContentPane(root);
+
+        // Hidden until asked for: Ctrl+Shift+D toggles the Diagnostics tab
+        root.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("ctrl shift D"), "diagnostics");
+        root.getActionMap().put("diagnostics", new AbstractAction() {
+            @Override public void actionPerformed(ActionEvent e) { toggleDiagnostics(); }
+        });
+    }
+
+    private void toggleDiagnostics() {
+        int i = tabs.indexOfTab("Diagnostics");
+        if (i >= 0) {
+            tabs.removeTabAt(i);
+        } else {
+            tabs.addTab("Diagnostics", new DiagnosticsPanel());
+            tabs.setSelectedIndex(tabs.getTabCount() - 1);
+        }
+    }
+
+    private void addLazyTab(String title, Supplier<JComponent> builder) {
+        JPanel placeholder = new JPanel(new BorderLayout());
+        placeholder.add(new JLabel("Loading…", SwingConstants.CENTER), BorderLayout.CENTER);
+        lazyTabs.put(placeholder, builder);
+        tabs.addTab(title, placeholder);
+    }
+
+    /** Settings shown on the Home tab: the streak depends on the quit date, the total on the rest. */
+    private static final Set<String> HOME_SETTINGS = Set.of(Settings.CURRENCY, Settings.PRICE_PER_PACK,
+            Settings.CIGS_PER_PACK, Settings.BASELINE_PER_DAY, Settings.QUIT_DATE);
+
+    /**
+     * Subscribes a built tab to the model; it recomputes only while (or once) it is showing, timed
+     * as {@code action} on the Diagnostics tab.
+     */
+    private <T extends JComponent> T refreshOnChange(T tab, String action, Set<String> watchedSettings, DeferredRefresh.Target target) {
+        model.addListener(new DeferredRefresh(tab, watchedSettings,
+                (from, to, changed) -> EdtMonitor.time(action, () -> target.refresh(from, to, changed))));
+        return tab;
+    }
+
+    /** Swaps the selected tab's placeholder for the real panel the first time it is shown. */
+    private void buildSelectedTab() {
+        int i = tabs.getSelectedIndex();
+        if (!dataLoaded || i < 0) return;
+        Supplier<JComponent> builder = lazyTabs.remove(tabs.getComponentAt(i));
+        if (builder == null) return;
+        long t = System.nanoTime();
+        tabs.setComponentAt(i, builder.get());
+        LOG.fine(() -> tabs.getTitleAt(i) + " tab built in " + (System.nanoTime() - t) / 1_000_000 + "ms");
+    }
+
+    private JMenuBar buildMenuBar() {
+        JMenuBar mb = new JMenuBar();
+        JMenu file = new JMenu("File");
+        JMenuItem export = new JMenuItem("Back Up Now");
+        export.addActionListener(e -> backupNowAction());
+        JMenuItem restore = new JMenuItem("Restore Backup…");
+        restore.addActionListener(e -> restoreBackupAction());
+        JMenuItem importCsv = new JMenuItem("Import / Merge…");
+        importCsv.addActionListener(e -> importMergeAction());
+        JMenuItem exportCsv = new JMenuItem("Export CSV…");
+        exportCsv.addActionListener(e -> exportCsvAction());
+        JMenuItem clearAll = new JMenuItem("Clear All Logs");
+        clearAll.addActionListener(e -> clearAllLogs());
+        JMenuItem exit = new JMenuItem("Exit");
+        exit.addActionListener(e -> dispose());
+        file.add(export);
+        file.add(restore);
+        file.add(importCsv);
+        file.add(exportCsv);
+        file.add(clearAll);
+        for (JMenuItem item : new JMenuItem[]{export, restore, importCsv, exportCsv, clearAll}) {
+            item.setEnabled(false);
+            dataActions.add(item);
+        }
+        file.addSeparator();
+        file.add(exit);
+
+        JMenu help = new JMenu("Help");
+        JMenuItem about = new JMenuItem("About QuitTrack");
+        about.addActionListener(e -> JOptionPane.showMessageDialog(this,
+                "QuitTrack — simple cigarette tracking\nTracks streaks, savings, daily/weekly logs and charts.",
+                "About", JOptionPane.INFORMATION_MESSAGE));
+        help.add(about);
+
+        mb.add(file);
+        mb.add(help);
+        return mb;
+    }
+
+    private JComponent buildHeader() {
+        JPanel header = new JPanel(new BorderLayout());
+        header.setBorder(new MatteBorder(0, 0, 1, 0, new Color(220,220,220)));
+        JLabel title = new JLabel("   🚭 QuitTrack");
+        title.setFont(title.getFont().deriveFont(Font.BOLD, 20f));
+        JLabel subtitle = new JLabel("   Track smoke-free streaks, savings and trends");
+        subtitle.setForeground(new Color(90, 90, 90));
+        JPanel left = new JPanel();
+        left.setLayout(new BoxLayout(left, BoxLayout.Y_AXIS));
+        left.setOpaque(false);
+        left.add(title);
+        left.add(Box.createVerticalStrut(2));
+        left.add(subtitle);
+        header.add(left, BorderLayout.WEST);
+        return header;
+    }
+
+    private JPanel buildHomePanel() {
+        JPanel p = padded(new JPanel(new GridBagLayout()), 16);
+        GridBagConstraints gc = new GridBagConstraints();
+        gc.insets = new Insets(8,8,8,8);
+        gc.fill = GridBagConstraints.HORIZONTAL;
+        gc.weightx = 1;
+
+        // Today input
+        JPanel todayCard = card("Today");
+        JPanel row = new JPanel(new FlowLayout(FlowLayout.LEFT, 12, 4));
+        row.add(new JLabel("Date:"));
+        JLabel todayLabel = new JLabel(LocalDate.now().format(DATE_FMT));
+        todayLabel.setFont(todayLabel.getFont().deriveFont(Font.BOLD));
+        row.add(todayLabel);
+        row.add(new JLabel("Cigarettes:"));
+        spinnerToday = new JSpinner(new SpinnerNumberModel(getValue(LocalDate.now()), 0, 200, 1));
+        ((JSpinner.DefaultEditor)spinnerToday.getEditor()).getTextField().setColumns(4);
+        row.add(spinnerToday);
+        JButton btnSave = primaryButton("Save Today");
+        btnSave.addActionListener(e -> saveTodayAction(spinnerToday));
+        row.add(btnSave);
+        todayCard.add(row);
+
+        // Event-level input: one click per cigarette, timestamped
+        JPanel eventRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 12, 4));
+        JButton btnPlusOne = primaryButton("+1 now");
+        btnPlusOne.setToolTipText("Record one cigarette at the current time");
+        btnPlusOne.addActionListener(e -> addEventAction());
+        JButton btnUndo = new JButton("Undo");
+        btnUndo.setToolTipText("Remove the most recently recorded cigarette");
+        btnUndo.addActionListener(e -> undoEventAction());
+        lblLastEvent = new JLabel();
+        eventRow.add(btnPlusOne);
+        eventRow.add(btnUndo);
+        eventRow.add(lblLastEvent);
+        todayCard.add(eventRow);
+
+        // Stats
+        JPanel statsCard = card("Your progress");
+        lblStreak = bigLabel("Streak: —");
+        lblSaved = mediumLabel("Saved: —");
+        statsCard.add(lblStreak);
+        statsCard.add(Box.createVerticalStrut(6));
+        statsCard.add(lblSaved);
+
+        gc.gridx = 0; gc.gridy = 0; gc.weightx = 0.6; p.add(todayCard, gc);
+        gc.gridx = 1; gc.gridy = 0; gc.weightx = 0.4; p.add(statsCard, gc);
+
+        return p;
+    }
+
+
+    // ----------------- Calendar Panel (Monthly Grid with design + Clear All) -----------------
+    private YearMonth currentMonth = YearMonth.now();
+    private MonthCalendar calendar;
+    private YearHeatmap heatmap;
+
+    private JPanel buildCalendarPanel() {
+        JPanel p = new JPanel(new BorderLayout());
+        p.setBorder(new EmptyBorder(12, 12, 12, 12));
+
+        // Top bar with navigation
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 4));
+        JComboBox<String> cbView = new JComboBox<>(new String[]{"Month", "Years"});
+        JButton prev = new JButton("◀ Prev");
+        JButton next = new JButton("Next ▶");
+        JLabel lblMonth = new JLabel(currentMonth.getMonth().toString() + " " + currentMonth.getYear());
+        lblMonth.setFont(lblMonth.getFont().deriveFont(Font.BOLD, 18f));
+        top.add(cbView);
+        top.add(prev);
+        top.add(lblMonth);
+        top.add(next);
+        p.add(top, BorderLayout.NORTH);
+
+        // Month grid, painted by one component
+        calendar = new MonthCalendar(new MonthCalendar.Source() {
+            @Override public int cigs(long epochDay) { return logs.get(epochDay); }
+            @Override public String savedText(long epochDay, int cigs) {
+                return settings.currency + String.format("%.2f", model.moneySavedOn(epochDay, cigs));
+            }
+        });
+        calendar.setMonth(currentMonth);
+
+        // Every year at once, one cell per day
+        heatmap = new YearHeatmap(new YearHeatmap.Source() {
+            @Override public int cigs(long epochDay) { return logs.get(epochDay); }
+            @Override public boolean logged(long epochDay) { return logs.contains(epochDay); }
+            @Override public long firstDay() { return logs.firstDay(); }
+            @Override public long lastDay() { return logs.lastDay(); }
+            @Override public int scaleMax() { return settings.baselinePerDay; }
+            @Override public String savedText(long epochDay, int cigs) {
+                return settings.currency + String.format("%.2f", model.moneySavedOn(epochDay, cigs));
+            }
+        });
+        JScrollPane heatmapScroll = new JScrollPane(heatmap);
+        heatmapScroll.getViewport().setBackground(Color.WHITE);
+
+        CardLayout cards = new CardLayout();
+        JPanel views = new JPanel(cards);
+        views.add(calendar, "Month");
+        views.add(heatmapScroll, "Years");
+        p.add(views, BorderLayout.CENTER);
+
+        // Bottom bar with Clear All button
+        JPanel bottom = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton clearAllBtn = new JButton("Clear All Logs");
+        clearAllBtn.addActionListener(e -> clearAllLogs());
+        bottom.add(clearAllBtn);
+        p.add(bottom, BorderLayout.SOUTH);
+
+        Runnable showMonth = () -> {
+            lblMonth.setText(currentMonth.getMonth().toString() + " " + currentMonth.getYear());
+            calendar.setMonth(currentMonth);
+        };
+        prev.addActionListener(e -> { currentMonth = currentMonth.minusMonths(1); EdtMonitor.time("Calendar navigation", showMonth); });
+        next.addActionListener(e -> { currentMonth = currentMonth.plusMonths(1); EdtMonitor.time("Calendar navigation", showMonth); });
+        cbView.addActionListener(e -> {
+            boolean month = "Month".equals(cbView.getSelectedItem());
+            prev.setVisible(month);
+            lblMonth.setVisible(month);
+            next.setVisible(month);
+            cards.show(views, month ? "Month" : "Years");
+            if (!month) heatmap.showYear(currentMonth.getYear());
+        });
+        heatmap.setDayListener(day -> { // a click opens that month
+            currentMonth = YearMonth.from(LocalDate.ofEpochDay(day));
+            showMonth.run();
+            cbView.setSelectedItem("Month");
+        });
+
+        return p;
+    }
+
+    private void clearAllLogs() {
+        int ok = JOptionPane.showConfirmDialog(this,
+                "This will permanently delete ALL logs, including today's entry. Continue?",
+                "Confirm Delete",
+                JOptionPane.YES_NO_OPTION);
+        if (ok == JOptionPane.YES_OPTION) {
+            model.clear();
+            updateStatus("All logs cleared");
+            JOptionPane.showMessageDialog(this, "All logs deleted.");
+        }
+    }
+
+    // ----------------- Weekly Panel -----------------
+    // ======= Weekly Table (Modern look) =======
+    private JPanel buildWeeklyPanel() {
+        JPanel p = new JPanel(new BorderLayout());
+        p.setBackground(Color.WHITE);
+        p.setBorder(new EmptyBorder(16,16,16,16));
+
+        // Crear tabla
+        weeklyModel = new WeeklyTableModel(logs, model.aggregates());
+        tblWeekly = new JTable(weeklyModel);
+        tblWeekly.setFillsViewportHeight(true);
+        tblWeekly.setRowHeight(28);
+        tblWeekly.setShowGrid(true);
+        tblWeekly.setGridColor(new Color(220, 226, 235));
+        tblWeekly.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+
+        // Cabecera de la tabla con estilo
+        JTableHeader header = tblWeekly.getTableHeader();
+        header.setFont(new Font("Segoe UI", Font.BOLD, 13));
+        header.setBackground(new Color(240, 242, 250));
+        header.setForeground(new Color(50, 50, 70));
+        header.setBorder(new MatteBorder(0, 0, 1, 0, new Color(200, 200, 200)));
+
+        // Zebra rows (filas alternadas con color)
+        tblWeekly.setDefaultRenderer(Object.class, new DefaultTableCellRenderer() {
+            @Override
+            public Component getTableCellRendererComponent(JTable table, Object value,
+                                                           boolean isSelected, boolean hasFocus,
+                                                           int row, int col) {
+                Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, col);
+                if (!isSelected) {
+                    c.setBackground(row % 2 == 0 ? Color.WHITE : new Color(245, 248, 252));
+                } else {
+                    c.setBackground(new Color(200, 220, 255)); // color cuando seleccionas fila
+                }
+                return c;
+            }
+        });
+
+        // Scroll con borde bonito
+        JScrollPane scroll = new JScrollPane(tblWeekly);
+        scroll.setBorder(new CompoundBorder(
+                new LineBorder(new Color(210, 215, 225), 1, true),
+                new EmptyBorder(6,6,6,6)
+        ));
+
+        formatColumns(tblWeekly);
+
+        // Sorting and filtering happen in the model, over week indexes
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 4));
+        controls.setOpaque(false);
+        JComboBox<WeeklyTableModel.Order> cbOrder = new JComboBox<>(WeeklyTableModel.Order.values());
+        cbOrder.addActionListener(e -> weeklyModel.setOrder((WeeklyTableModel.Order) cbOrder.getSelectedItem()));
+        JCheckBox cbAbove = new JCheckBox("Only weeks with more than");
+        cbAbove.setOpaque(false);
+        JSpinner spAbove = new JSpinner(new SpinnerNumberModel(0, 0, 1400, 5));
+        Runnable applyFilter = () -> weeklyModel.setFilter(cbAbove.isSelected() ? (Integer) spAbove.getValue() : -1);
+        cbAbove.addActionListener(e -> applyFilter.run());
+        spAbove.addChangeListener(e -> applyFilter.run());
+        controls.add(new JLabel("Sort:"));
+        controls.add(cbOrder);
+        controls.add(cbAbove);
+        controls.add(spAbove);
+        controls.add(new JLabel("cigarettes"));
+
+        // Card envolviendo la tabla
+        JPanel card = card("Weekly Summary");
+        card.setLayout(new BorderLayout());
+        card.add(controls, BorderLayout.NORTH);
+        card.add(scroll, BorderLayout.CENTER);
+
+        p.add(card, BorderLayout.CENTER);
+        return p;
+    }
+
+
+    // ----------------- Streaks Panel -----------------
+    private JPanel buildStreaksPanel() {
+        JPanel p = new JPanel(new BorderLayout());
+        p.setBorder(new EmptyBorder(16,16,16,16));
+
+        lblLongestStreak = mediumLabel("Longest streak: —");
+        lblLongestStreak.setBorder(new EmptyBorder(0,0,10,0));
+        p.add(lblLongestStreak, BorderLayout.NORTH);
+
+        tblStreaks = new JTable();
+        tblStreaks.setFillsViewportHeight(true);
+        tblStreaks.setRowHeight(28);
+        refreshStreaksTable();
+
+        JPanel card = card("Smoke-free streaks since quit date");
+        card.setLayout(new BorderLayout());
+        card.add(new JScrollPane(tblStreaks), BorderLayout.CENTER);
+        p.add(card, BorderLayout.CENTER);
+        return p;
+    }
+
+    private void refreshStreaksTable() {
+        if (tblStreaks == null) return;
+        long today = LocalDate.now().toEpochDay();
+        String[] cols = {"From", "To", "Days"};
+        DefaultTableModel m = new DefaultTableModel(cols, 0) {
+            @Override public boolean isCellEditable(int r, int c) { return false; }
+            @Override public Class<?> getColumnClass(int ci) { return ci==2?Long.class:String.class; }
+        };
+        java.util.List<StreakIndex.Streak> all = model.streaks().streaks(today);
+        for (int i = all.size() - 1; i >= 0; i--) { // newest first
+            StreakIndex.Streak s = all.get(i);
+            String to = s.endDay() == today ? "today" : LocalDate.ofEpochDay(s.endDay()).format(DATE_FMT);
+            m.addRow(new Object[]{LocalDate.ofEpochDay(s.startDay()).format(DATE_FMT), to, s.length()});
+        }
+        tblStreaks.setModel(m);
+        formatColumns(tblStreaks);
+        long longest = model.streaks().longestStreak(today);
+        lblLongestStreak.setText("Longest streak: " + longest + (longest == 1 ? " day" : " days"));
+    }
+
+    // ----------------- Insights Panel -----------------
+    private static final int[] ROLLING_DAYS = {7, 30, 90};
+
+    private JPanel buildInsightsPanel() {
+        JPanel p = padded(new JPanel(new GridBagLayout()), 16);
+        GridBagConstraints gc = new GridBagConstraints();
+        gc.insets = new Insets(8,8,8,8);
+        gc.fill = GridBagConstraints.BOTH;
+        gc.weightx = 1;
+
+        JPanel recent = card("Recent averages");
+        lblRolling = new JLabel[ROLLING_DAYS.length];
+        for (int i = 0; i < ROLLING_DAYS.length; i++) {
+            lblRolling[i] = mediumLabel("—");
+            recent.add(lblRolling[i]);
+        }
+
+        JPanel counts = card("Daily counts, all history");
+        lblDistribution = new JLabel("—");
+        counts.add(lblDistribution);
+
+        JPanel weekdays = card("By day of week");
+        weekdays.setLayout(new GridLayout(7, 2, 8, 4));
+        dowBars = new JProgressBar[7];
+        for (DayOfWeek d : DayOfWeek.values()) {
+            JProgressBar bar = new JProgressBar(0, 1000);
+            bar.setStringPainted(true);
+            dowBars[d.getValue() - 1] = bar;
+            weekdays.add(new JLabel(d.getDisplayName(java.time.format.TextStyle.FULL, Locale.getDefault())));
+            weekdays.add(bar);
+        }
+
+        JPanel trend = card("Trend");
+        lblTrend = mediumLabel("—");
+        lblProjection = new JLabel("—");
+        trend.add(lblTrend);
+        trend.add(Box.createVerticalStrut(6));
+        trend.add(lblProjection);
+
+        gc.gridx = 0; gc.gridy = 0; p.add(recent, gc);
+        gc.gridx = 1; p.add(trend, gc);
+        gc.gridx = 0; gc.gridy = 1; p.add(counts, gc);
+        gc.gridx = 1; p.add(weekdays, gc);
+        gc.gridx = 0; gc.gridy = 2; gc.gridwidth = 2; gc.weighty = 1; p.add(Box.createGlue(), gc);
+        refreshInsights();
+        return p;
+    }
+
+    /** Everything here comes from summaries kept up to date on each save; nothing rescans the log. */
+    private void refreshInsights() {
+        if (lblRolling == null) return;
+        Telemetry.Compute c = Telemetry.compute("computeInsights");
+        long today = LocalDate.now().toEpochDay();
+        for (int i = 0; i < ROLLING_DAYS.length; i++) {
+            double mean = model.rollingMean(today, ROLLING_DAYS[i]);
+            lblRolling[i].setText("Last " + ROLLING_DAYS[i] + " days: " + (Double.isNaN(mean) ? "no entries" : String.format(Locale.US, "%.2f a day", mean)));
+        }
+
+        DayStats stats = model.stats();
+        CountHistogram hist = model.histogram();
+        lblDistribution.setText(stats.days() == 0 ? "No entries yet" : String.format(Locale.US,
+                "<html>%d days logged<br>Mean %.2f, std. dev. %.2f<br>Median %d, 90th percentile %d, highest %d</html>",
+                stats.days(), stats.mean(), stats.stdDev(), hist.quantile(0.5), hist.quantile(0.9), hist.max()));
+
+        double top = 0;
+        for (DayOfWeek d : DayOfWeek.values()) top = Math.max(top, stats.mean(d));
+        for (DayOfWeek d : DayOfWeek.values()) {
+            double mean = stats.mean(d);
+            JProgressBar bar = dowBars[d.getValue() - 1];
+            bar.setValue(top == 0 ? 0 : (int) Math.round(mean / top * 1000));
+            bar.setString(String.format(Locale.US, "%.2f", mean));
+        }
+
+        DayStats.Trend t = stats.trend();
+        if (t == null) {
+            lblTrend.setText("Not enough entries yet");
+            lblProjection.setText(" ");
+        } else {
+            double perWeek = t.slope() * 7;
+            lblTrend.setText(String.format(Locale.US, "%+.2f a day per week", perWeek));
+            long zero = t.zeroDay();
+            if (zero == LogStore.NONE) lblProjection.setText("Not falling yet. Every smoke-free day bends the line down.");
+            else if (zero <= today) lblProjection.setText("The trend line is already at zero.");
+            else if (zero - today > 36_500) lblProjection.setText("Falling slowly: zero is over a century away at this rate.");
+            else lblProjection.setText("At this rate you reach zero on " + LocalDate.ofEpochDay(zero).format(DATE_FMT) + ".");
+        }
+        c.end((int) stats.days());
+    }
+
+    // ----------------- Charts Panel -----------------
+    private JPanel buildChartsPanel() {
+        JPanel p = new JPanel(new BorderLayout(12,12));
+        p.setBorder(new EmptyBorder(12,12,12,12));
+
+        charts = new TrendCharts(new TrendCharts.Source() {
+            @Override public int cigs(long epochDay) { return logs.get(epochDay); }
+            @Override public boolean logged(long epochDay) { return logs.contains(epochDay); }
+            @Override public long firstDay() { return logs.firstDay(); }
+            @Override public long lastDay() { return logs.lastDay(); }
+            @Override public long cigs(long fromDay, long toDay) { return model.aggregates().cigs(fromDay, toDay); }
+            @Override public double saved(long fromDay, long toDay) { return model.moneySaved(fromDay, toDay); }
+            @Override public String currency() { return settings.currency; }
+        });
+
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 4));
+        cbChartMode = new JComboBox<>(new String[]{TrendCharts.WEEKLY, TrendCharts.MONTHLY, TrendCharts.HISTORY});
+        cbChartMode.addActionListener(e -> charts.show(Objects.toString(cbChartMode.getSelectedItem(), TrendCharts.WEEKLY)));
+        top.add(new JLabel("View:"));
+        top.add(cbChartMode);
+        p.add(top, BorderLayout.NORTH);
+
+        JPanel grid = new JPanel(new GridLayout(1,2,16,0));
+        grid.add(charts.cigsPanel());
+        grid.add(charts.savedPanel());
+        p.add(grid, BorderLayout.CENTER);
+
+        return p;
+    }
+
+    // ----------------- Settings Panel -----------------
+    private JPanel buildSettingsPanel() {
+        JPanel p = padded(new JPanel());
+        p.setLayout(new BoxLayout(p, BoxLayout.Y_AXIS));
+
+        JTextField tfQuitDate = new JTextField(settings.quitDate.toString(), 12);
+        JTextField tfPricePerPack = new JTextField(String.valueOf(settings.pricePerPack), 10);
+        JTextField tfCigsPerPack = new JTextField(String.valueOf(settings.cigsPerPack), 10);
+        JTextField tfBaseline = new JTextField(String.valueOf(settings.baselinePerDay), 10);
+        JTextField tfPriceFrom = new JTextField(LocalDate.now().toString(), 12);
+        JTextField tfRetention = new JTextField(settings.backupRetention, 10);
+
+        JComboBox<String> cbCurrency = new JComboBox<>(new String[]{"$","€","£","AMD","RON"});
+        cbCurrency.setSelectedItem(settings.currency);
+
+        JCheckBox cbNotify = new JCheckBox("Show motivational quote at startup", settings.notificationsEnabled);
+
+        p.add(labeled("Quit date (yyyy-MM-dd)", tfQuitDate));
+        p.add(labeled("Price per pack", tfPricePerPack));
+        p.add(labeled("Cigarettes per pack", tfCigsPerPack));
+        p.add(labeled("Baseline cigarettes/day", tfBaseline));
+        p.add(labeled("Price applies from (yyyy-MM-dd)", tfPriceFrom));
+        p.add(labeled("Currency", cbCurrency));
+        p.add(labeled("Keep backups (hours,days,weeks)", tfRetention));
+        p.add(cbNotify);
+
+        JButton btnSave = primaryButton("Save Settings");
+        btnSave.addActionListener(e -> {
+            try {
+                Settings edited = settings.copy();
+                edited.quitDate = LocalDate.parse(tfQuitDate.getText().trim());
+                PriceHistory.Segment price = new PriceHistory.Segment(LocalDate.parse(tfPriceFrom.getText().trim()).toEpochDay(),
+                        parsePositiveDouble(tfPricePerPack.getText().trim(), "Price per pack"),
+                        parsePositiveInt(tfCigsPerPack.getText().trim(), "Cigarettes per pack"),
+                        parseNonNegativeInt(tfBaseline.getText().trim(), "Baseline per day"));
+                edited.currency = (String) cbCurrency.getSelectedItem();
+                edited.notificationsEnabled = cbNotify.isSelected();
+                edited.backupRetention = BackupStore.Retention.parse(tfRetention.getText().trim()).toString();
+                EdtMonitor.time("Settings save", () -> {
+                    // Only the days from the given date on get the new price
+                    if (!price.samePrice(model.prices().at(price.fromDay()))) model.setPrice(price);
+                    edited.pricePerPack = settings.pricePerPack;
+                    edited.cigsPerPack = settings.cigsPerPack;
+                    edited.baselinePerDay = settings.baselinePerDay;
+                    model.updateSettings(edited);
+                });
+                JOptionPane.showMessageDialog(this, "Settings saved.");
+            } catch (Exception ex) {
+                showError(ex.getMessage());
+            }
+        });
+        p.add(Box.createVerticalStrut(8));
+        p.add(btnSave);
+
+        // Price history: every effective-dated price; editing a row re-prices just its days
+        JPanel pricesCard = card("Price history");
+        pricesCard.setAlignmentX(Component.LEFT_ALIGNMENT);
+        tblPrices = new JTable();
+        tblPrices.setRowHeight(24);
+        tblPrices.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        refreshPriceTable();
+        JScrollPane pricesScroll = new JScrollPane(tblPrices);
+        pricesScroll.setPreferredSize(new Dimension(480, 120));
+        JButton btnRemovePrice = new JButton("Remove Price");
+        btnRemovePrice.addActionListener(e -> {
+            int row = tblPrices.getSelectedRow();
+            if (row <= 0) {
+                showError(row == 0 ? "The first price cannot be removed." : "Select a price to remove.");
+                return;
+            }
+            model.removePrice(model.prices().segments().get(row).fromDay());
+        });
+        pricesCard.add(pricesScroll);
+        pricesCard.add(Box.createVerticalStrut(6));
+        pricesCard.add(btnRemovePrice);
+        p.add(Box.createVerticalStrut(12));
+        p.add(pricesCard);
+
+        // What-if: savings under another baseline and price, recomputed from the count histogram on every drag tick
+        JPanel whatIf = card("What if");
+        whatIf.setAlignmentX(Component.LEFT_ALIGNMENT);
+        JSlider slBaseline = new JSlider(0, Math.max(60, settings.baselinePerDay * 2), settings.baselinePerDay);
+        slBaseline.setMajorTickSpacing(10);
+        slBaseline.setMinorTickSpacing(1);
+        slBaseline.setPaintTicks(true);
+        slBaseline.setPaintLabels(true);
+        slBaseline.setBackground(whatIf.getBackground());
+        JLabel lblWhatIfBaseline = new JLabel();
+        JLabel lblWhatIf = mediumLabel(" ");
+        JLabel lblWhatIfYear = new JLabel(" ");
+        whatIf.add(lblWhatIfBaseline);
+        whatIf.add(slBaseline);
+        whatIf.add(Box.createVerticalStrut(6));
+        whatIf.add(lblWhatIf);
+        whatIf.add(lblWhatIfYear);
+        refreshWhatIf = () -> {
+            int baseline = slBaseline.getValue();
+            double pricePerCig = whatIfPricePerCig(tfPricePerPack.getText(), tfCigsPerPack.getText());
+            String cur = (String) cbCurrency.getSelectedItem();
+            int year = LocalDate.now().getYear();
+            double saved = model.moneySavedTotal(baseline, pricePerCig);
+            double now = model.moneySavedTotal();
+            lblWhatIfBaseline.setText("If you used to smoke " + baseline + " a day:");
+            // The histogram has no dates, so the what-if prices every day alike; "now" uses each day's own segment
+            boolean onePrice = model.prices().size() == 1;
+            lblWhatIf.setText(onePrice
+                    ? String.format("Saved %s%.2f (now %s%.2f)", cur, saved, settings.currency, now)
+                    : String.format("Saved %s%.2f at this one price for your whole history (now %s%.2f at each period's price)", cur, saved, settings.currency, now));
+            lblWhatIfYear.setText(String.format("%d so far: %s%.2f%s", year, cur, model.moneySavedInYear(year, baseline, pricePerCig), onePrice ? "" : " at this one price"));
+        };
+        slBaseline.addChangeListener(e -> EdtMonitor.time("What-if", refreshWhatIf));
+        javax.swing.event.DocumentListener priceEdited = new javax.swing.event.DocumentListener() {
+            @Override public void insertUpdate(javax.swing.event.DocumentEvent e) { refreshWhatIf.run(); }
+            @Override public void removeUpdate(javax.swing.event.DocumentEvent e) { refreshWhatIf.run(); }
+            @Override public void changedUpdate(javax.swing.event.DocumentEvent e) { refreshWhatIf.run(); }
+        };
+        tfPricePerPack.getDocument().addDocumentListener(priceEdited);
+        tfCigsPerPack.getDocument().addDocumentListener(priceEdited);
+        cbCurrency.addActionListener(e -> refreshWhatIf.run());
+        refreshWhatIf.run();
+        p.add(Box.createVerticalStrut(12));
+        p.add(whatIf);
+
+        return p;
+    }
+
+    private void refreshPriceTable() {
+        if (tblPrices == null) return;
+        tblPrices.setModel(priceTableModel());
+        formatColumns(tblPrices);
+    }
+
+    /** One row per {@link PriceHistory.Segment}; price, pack size and baseline are editable in place. */
+    private DefaultTableModel priceTableModel() {
+        String[] cols = {"From", "Price per pack", "Cigarettes per pack", "Baseline/day"};
+        java.util.List<PriceHistory.Segment> segments = model.prices().segments();
+        DefaultTableModel m = new DefaultTableModel(cols, 0) {
+            @Override public boolean isCellEditable(int r, int c) { return c > 0; }
+            @Override public Class<?> getColumnClass(int ci) { return ci == 0 ? String.class : (ci == 1 ? Double.class : Integer.class); }
+            @Override public void setValueAt(Object value, int r, int c) {
+                PriceHistory.Segment s = segments.get(r);
+                try {
+                    double price = c == 1 ? parsePositiveDouble(String.valueOf(value), "Price per pack") : s.pricePerPack();
+                    int cigs = c == 2 ? parsePositiveInt(String.valueOf(value), "Cigarettes per pack") : s.cigsPerPack();
+                    int baseline = c == 3 ? parseNonNegativeInt(String.valueOf(value), "Baseline per day") : s.baselinePerDay();
+                    EdtMonitor.time("Price edit", () -> model.setPrice(new PriceHistory.Segment(s.fromDay(), price, cigs, baseline)));
+                } catch (Exception ex) {
+                    showError(ex.getMessage());
+                }
+            }
+        };
+        for (PriceHistory.Segment s : segments) {
+            String from = s.fromDay() == PriceHistory.BEGINNING ? "(beginning)" : LocalDate.ofEpochDay(s.fromDay()).format(DATE_FMT);
+            m.addRow(new Object[]{from, s.pricePerPack(), s.cigsPerPack(), s.baselinePerDay()});
+        }
+        return m;
+    }
+
+    /** Price per cigarette from the (possibly unsaved) settings fields, falling back to the saved ones. */
+    private double whatIfPricePerCig(String pricePerPack, String cigsPerPack) {
+        try {
+            double price = Double.parseDouble(pricePerPack.trim());
+            int cigs = Integer.parseInt(cigsPerPack.trim());
+            if (price > 0 && cigs > 0) return price / cigs;
+        } catch (NumberFormatException ignored) {
+            // half-typed value
+        }
+        return settings.pricePerCig();
+    }
+
+    // ---------- Persistence ----------
+    private void loadLogs() {
+        try {
+            Path bin = Paths.get(LOG_BIN);
+            Path csv = Paths.get(LOG_CSV);
+            Path journalPath = Paths.get(LOG_JOURNAL);
+            boolean migrate = !Files.exists(bin) && Files.exists(csv);
+            Telemetry.io("loadLogs", bin, io -> {
+                io.read(sizeOf(bin) + sizeOf(journalPath) + sizeOf(journalPath.resolveSibling(journalPath.getFileName() + ".old")));
+                journal = new LogJournal(LogFile.open(bin), journalPath);
+                journal.load(logs);
+                if (migrate) {
+                    // First start on logs.bin: carry the old CSV over. logs.csv itself is left in place.
+                    io.read(sizeOf(csv));
+                    LogCsv.ReadSummary read = LogCsv.read(csv, logs);
+                    if (read.skipped() > 0) LOG.warning("Migrating " + csv + ": " + read);
+                    journal.replaceAll(logs);
+                }
+                io.rows(logs.size());
+                return null;
+            });
+        } catch (Exception e) {
+            showError("Failed to load logs: " + e.getMessage());
+        }
+        try {
+            EventFile file = new EventFile(Paths.get(EVENTS_BIN));
+            Telemetry.io("loadEvents", file.path(), io -> {
+                io.read(file.load(model.events()));
+                io.rows((int) Math.min(Integer.MAX_VALUE, model.events().size()));
+                return null;
+            });
+            events = file;
+        } catch (Exception e) {
+            showError("Failed to load events: " + e.getMessage());
+        }
+        model.reindex();
+        backups = new BackupStore(Paths.get(BACKUP_DIR), retention(settings), new BackupStore.Listener() {
+            @Override public void backedUp(BackupStore.Point point) {
+                SwingUtilities.invokeLater(() -> updateStatus("Backed up " + point));
+            }
+            @Override public void failed(String message) {
+                SwingUtilities.invokeLater(() -> updateStatus("Backup failed: " + message));
+            }
+        });
+        PersistenceQueue queue = new PersistenceQueue(journal, events, Paths.get(SETTINGS_PROP), Paths.get(PRICES_CSV), new PersistenceQueue.Listener() {
+            @Override public void flushed(String summary) {
+                SwingUtilities.invokeLater(() -> {
+                    updateStatus("Saved " + summary);
+                    if (backups != null) backups.changed(logs.copy()); // written once saves go quiet
+                });
+            }
+            @Override public void failed(String message) {
+                SwingUtilities.invokeLater(() -> updateStatus("Save failed, retrying: " + message));
+            }
+        });
+        persistence = queue;
+        // Persistence is just another model listener: each event becomes the matching queued write.
+        model.addListener(new LogModel.Listener() {
+            @Override public void dayChanged(long epochDay, int prev, int now) {
+                if (applyingFromDisk) return;
+                if (now < 0) queue.remove(epochDay);
+                else queue.put(epochDay, now);
+            }
+            @Override public void eventChanged(long epochSecond, boolean removed) {
+                if (applyingFromDisk) return;
+                if (removed) queue.removeEvent(epochSecond);
+                else queue.appendEvent(epochSecond);
+            }
+            @Override public void rangeCleared(long fromDay, long toDay) { if (!applyingFromDisk) queue.clear(); }
+            @Override public void rangeChanged(long fromDay, long toDay) { if (!applyingFromDisk) queue.replaceAll(logs.copy()); }
+            @Override public void pricesChanged(long fromDay, long toDay) { if (!applyingFromDisk) queue.savePrices(model.prices().copy()); }
+            @Override public void settingsChanged(Set<String> fields) {
+                if (!applyingFromDisk) queue.saveSettings(settings.toProperties());
+                if (fields.contains(Settings.BACKUP_RETENTION)) backups.setRetention(retention(settings));
+            }
+        });
+        // Another window (or a sync tool) writing the same files shows up here as model changes.
+        try {
+            diskWatcher = new DiskWatcher(Paths.get(APP_DIR), model, journal, events, Paths.get(SETTINGS_PROP), Paths.get(PRICES_CSV), queue,
+                    new DiskWatcher.Listener() {
+                        @Override public void apply(Callable<String> changes) {
+                            SwingUtilities.invokeLater(() -> EdtMonitor.time("Apply changes made elsewhere", () -> applyFromDisk(changes)));
+                        }
+                        @Override public void failed(String message) {
+                            SwingUtilities.invokeLater(() -> updateStatus("Reading changes made elsewhere failed: " + message));
+                        }
+                    });
+        } catch (IOException | RuntimeException e) {
+            LOG.warning("Not watching " + APP_DIR + " for changes made elsewhere: " + e.getMessage());
+        }
+    }
+
+    /** Applies what another process changed; it is on disk already, so nothing is queued for it. */
+    private void applyFromDisk(Callable<String> changes) {
+        long today = LocalDate.now().toEpochDay();
+        int todayBefore = model.get(today);
+        applyingFromDisk = true;
+        try {
+            String status = changes.call();
+            if (lblLastEvent != null) refreshLastEventLabel(); // events come without a day of their own
+            if (spinnerToday != null && model.get(today) != todayBefore) spinnerToday.setValue(model.get(today));
+            if (status != null) updateStatus(status);
+        } catch (Exception e) {
+            updateStatus("Applying changes made elsewhere failed: " + e.getMessage());
+        } finally {
+            applyingFromDisk = false;
+        }
+    }
+
+    private static long sizeOf(Path p) throws IOException {
+        return Files.exists(p) ? Files.size(p) : 0;
+    }
+
+    private static BackupStore.Retention retention(Settings s) {
+        try {
+            return BackupStore.Retention.parse(s.backupRetention);
+        } catch (RuntimeException e) {
+            LOG.warning("Bad backup retention '" + s.backupRetention + "', using " + BackupStore.Retention.DEFAULT);
+            return BackupStore.Retention.DEFAULT;
+        }
+    }
+
+    /** Flushes pending writes and closes the log file; runs when the window goes away. */
+    private void closeLogs() {
+        if (diskWatcher != null) {
+            try {
+                diskWatcher.close();
+            } catch (IOException e) {
+                LOG.fine(() -> "Closing the file watcher: " + e.getMessage());
+            }
+            diskWatcher = null;
+        }
+        if (persistence != null) {
+            try {
+                persistence.close(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            persistence = null;
+        }
+        if (backups != null) {
+            backups.changed(logs.copy());
+            try {
+                backups.close(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            backups = null;
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                showError("Failed to save logs: " + e.getMessage());
+            }
+            journal = null;
+        }
+        if (events != null) {
+            try {
+                events.close();
+            } catch (IOException e) {
+                showError("Failed to save events: " + e.getMessage());
+            }
+            events = null;
+        }
+    }
+
+    private void loadSettings() {
+        Properties props = new Properties();
+        Path p = Paths.get(SETTINGS_PROP);
+        if (Files.exists(p)) {
+            try {
+                Telemetry.io("loadSettings", p, io -> {
+                    try (InputStream in = Files.newInputStream(p)) {
+                        props.load(in);
+                    }
+                    io.read(sizeOf(p));
+                    io.rows(props.size());
+                    return null;
+                });
+            } catch (IOException e) {
+                showError("Failed to load settings: " + e.getMessage());
+            }
+        }
+        Settings loaded;
+        try {
+            loaded = Settings.fromProperties(props);
+        } catch (RuntimeException e) { // the other fields fall back one by one; a quit date has no default to parse to
+            LOG.warning("Bad quit date '" + props.getProperty(Settings.QUIT_DATE) + "', using today");
+            props.remove(Settings.QUIT_DATE);
+            loaded = Settings.fromProperties(props);
+        }
+        settings.copyFrom(loaded); // nobody listens yet
+        Path prices = Paths.get(PRICES_CSV);
+        if (Files.exists(prices)) { // otherwise the settings' price holds for all of history
+            try {
+                Telemetry.io("loadPrices", prices, io -> {
+                    model.prices().copyFrom(PriceHistory.read(prices));
+                    io.read(sizeOf(prices));
+                    io.rows(model.prices().size());
+                    return null;
+                });
+            } catch (IOException e) {
+                showError("Failed to load price history: " + e.getMessage());
+            }
+        }
+    }
+
+    private void backupNowAction() {
+        if (logs.isEmpty()) {
+            showError("No logs to back up yet.");
+            return;
+        }
+        Future<BackupStore.Point> written = backups.backupNow(logs.copy());
+        updateStatus("Backing up…");
+        new SwingWorker<BackupStore.Point, Void>() {
+            @Override protected BackupStore.Point doInBackground() throws Exception {
+                return written.get();
+            }
+
+            @Override protected void done() {
+                try {
+                    if (get() == null) updateStatus("Backup is up to date");
+                } catch (ExecutionException e) {
+                    showError("Backup failed: " + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
+    }
+
+    /** Lists the backup points, then replaces the log with the chosen one. Both file steps run off the EDT. */
+    private void restoreBackupAction() {
+        new SwingWorker<java.util.List<BackupStore.Point>, Void>() {
+            @Override protected java.util.List<BackupStore.Point> doInBackground() throws IOException {
+                return backups.points();
+            }
+
+            @Override protected void done() {
+                try {
+                    java.util.List<BackupStore.Point> points = new ArrayList<>(get());
+                    if (points.isEmpty()) {
+                        showError("There are no backups yet.");
+                        return;
+                    }
+                    Collections.reverse(points); // newest first
+                    JComboBox<BackupStore.Point> cbPoint = new JComboBox<>(points.toArray(new BackupStore.Point[0]));
+                    int ok = JOptionPane.showConfirmDialog(QuitTrackSwing.this, labeled("Restore the logs as of", cbPoint),
+                            "Restore Backup", JOptionPane.OK_CANCEL_OPTION);
+                    if (ok == JOptionPane.OK_OPTION) restoreBackup((BackupStore.Point) cbPoint.getSelectedItem());
+                } catch (ExecutionException e) {
+                    showError("Cannot list backups: " + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
+    }
+
+    private void restoreBackup(BackupStore.Point point) {
+        updateStatus("Restoring…");
+        new SwingWorker<LogStore, Void>() {
+            @Override protected LogStore doInBackground() throws IOException {
+                return backups.restore(point);
+            }
+
+            @Override protected void done() {
+                try {
+                    model.replaceAll(get());
+                    updateStatus("Restored backup from " + point);
+                } catch (ExecutionException e) {
+                    showError("Restore failed: " + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
+    }
+
+    /** Reads one or more backups or CSVs off the EDT, then merges them in with one batched model update. */
+    private void importMergeAction() {
+        JFileChooser fc = new JFileChooser(BACKUP_DIR);
+        fc.setMultiSelectionEnabled(true);
+        fc.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Backups and CSV files", "qtb", "csv"));
+        if (fc.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        java.util.List<Path> files = new ArrayList<>();
+        for (File f : fc.getSelectedFiles()) files.add(f.toPath());
+        if (files.isEmpty()) return;
+        JComboBox<LogMerge.Policy> cbPolicy = new JComboBox<>(LogMerge.Policy.values());
+        int ok = JOptionPane.showConfirmDialog(this, labeled("When a day already has a count", cbPolicy),
+                "Merge " + files.size() + (files.size() == 1 ? " file" : " files"), JOptionPane.OK_CANCEL_OPTION);
+        if (ok != JOptionPane.OK_OPTION) return;
+        LogMerge.Policy policy = (LogMerge.Policy) cbPolicy.getSelectedItem();
+        BackupStore from = backups;
+        updateStatus("Reading " + files.size() + (files.size() == 1 ? " file…" : " files…"));
+        new SwingWorker<LogMerge.Parsed, Void>() {
+            @Override protected LogMerge.Parsed doInBackground() throws IOException {
+                return LogMerge.parse(files, from);
+            }
+
+            @Override protected void done() {
+                try {
+                    LogMerge.Parsed parsed = get();
+                    LogStore changes = LogMerge.changes(logs, parsed.stores(), policy);
+                    EdtMonitor.time("Import merge", () -> model.putAll(changes));
+                    updateStatus("Merged " + parsed.describe() + ": " + changes.size() + (changes.size() == 1 ? " day" : " days") + " changed");
+                } catch (ExecutionException e) {
+                    showError("Import failed: " + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
+    }
+
+    private void exportCsvAction() {
+        JFileChooser fc = new JFileChooser();
+        fc.setSelectedFile(new File("logs.csv"));
+        if (fc.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        try {
+            LogCsv.write(logs, fc.getSelectedFile().toPath());
+            updateStatus("Exported " + logs.size() + " days");
+        } catch (IOException e) {
+            showError("Export failed: " + e.getMessage());
+        }
+    }
+
+    private void ensureAppFolders() {
+        try {
+            Files.createDirectories(Paths.get(APP_DIR));
+            Files.createDirectories(Paths.get(BACKUP_DIR));
+        } catch (IOException e) {
+            showError("Cannot create app folders: " + e.getMessage());
+        }
+    }
+
+    // ---------- Computations ----------
+    private void refreshComputedLabels() {
+        if (lblStreak == null) return;
+        refreshLastEventLabel();
+        int streak = model.currentStreak(LocalDate.now().toEpochDay());
+        lblStreak.setText("Streak: " + streak + (streak == 1 ? " day" : " days"));
+
+        double saved = model.moneySavedTotal();
+        lblSaved.setText("Saved: " + settings.currency + String.format(Locale.US, "%.2f", saved));
+    }
+
+    private void saveTodayAction(JSpinner spinner) {
+        try {
+            int value = (Integer) spinner.getValue();
+            if (value < 0 || value > 200) throw new IllegalArgumentException("Today's cigarettes must be 0–200.");
+            long today = LocalDate.now().toEpochDay();
+            if (logs.contains(today) && model.get(today) == value) {
+                updateStatus("Today is already " + value); // nothing to write, so the queue will not report
+                return;
+            }
+            EdtMonitor.time("Save today", () -> model.put(today, value)); // tabs and persistence follow the model's events
+            updateStatus("Saving…"); // the persistence queue reports "Saved …" or the failure once written
+        } catch (Exception ex) {
+            showError(ex.getMessage());
+        }
+    }
+    private void addEventAction() {
+        long today = LocalDate.now().toEpochDay();
+        if (model.get(today) >= 200) {
+            showError("Today's cigarettes must be 0–200.");
+            return;
+        }
+        EdtMonitor.time("Add event", () -> model.addEvent(Instant.now().getEpochSecond()));
+        spinnerToday.setValue(model.get(today));
+        updateStatus("Recorded one at " + LocalTime.now().format(TIME_FMT));
+    }
+
+    private void undoEventAction() {
+        long last = model.events().last();
+        if (last == EventStore.NONE) {
+            showError("No recorded cigarettes to undo.");
+            return;
+        }
+        EdtMonitor.time("Undo event", () -> model.removeEvent(last));
+        spinnerToday.setValue(model.get(LocalDate.now().toEpochDay()));
+        updateStatus("Removed the one recorded at " + LocalDateTime.ofInstant(Instant.ofEpochSecond(last), ZoneId.systemDefault()).format(TIME_FMT));
+    }
+
+    /** Time of the newest event and today's busiest hour, from the event rollups. */
+    private void refreshLastEventLabel() {
+        EventStore ev = model.events();
+        long last = ev.last();
+        if (last == EventStore.NONE) {
+            lblLastEvent.setText("No cigarettes recorded individually yet");
+            return;
+        }
+        LocalDateTime at = LocalDateTime.ofInstant(Instant.ofEpochSecond(last), ZoneId.systemDefault());
+        String text = "Last: " + (at.toLocalDate().equals(LocalDate.now()) ? "today " : at.toLocalDate().format(DATE_FMT) + " ") + at.format(TIME_FMT);
+        long today = LocalDate.now().toEpochDay();
+        int peak = -1;
+        for (int h = 0; h < 24; h++) {
+            if (ev.hourCount(today, h) > 0 && (peak < 0 || ev.hourCount(today, h) > ev.hourCount(today, peak))) peak = h;
+        }
+        if (peak >= 0) text += String.format(" · most today around %02d:00", peak);
+        lblLastEvent.setText(text);
+    }
+
+    // ---------- Motivation ----------
+    private void showMotivationIfEnabled() {
+        if (!settings.notificationsEnabled) return;
+        String[] quotes = {
+                "Small steps every day beat big plans once a year.",
+                "Your lungs are already thanking you.",
+                "One day at a time. One choice at a time.",
+                "Cravings pass. Pride lasts.",
+                "Today’s zero is tomorrow’s streak."
+        };
+        JOptionPane.showMessageDialog(this, quotes[new Random().nextInt(quotes.length)],
+                "Keep going!", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    // ---------- UI Helpers ----------
+    private JPanel padded(JPanel p) {
+        return padded(p, 16);
+    }
+    private JPanel padded(JPanel p, int pad) {
+        p.setBorder(new EmptyBorder(pad,pad,pad,pad));
+        return p;
+    }
+    private JPanel card(String title) {
+        JPanel c = new JPanel(); c.setLayout(new BoxLayout(c, BoxLayout.Y_AXIS));
+        c.setBorder(new CompoundBorder(new TitledBorder(new LineBorder(new Color(210,210,210)), title), new EmptyBorder(10,10,10,10)));
+        c.setBackground(new Color(250,250,252));
+        return c;
+    }
+    private JLabel bigLabel(String s) { JLabel l=new JLabel(s); l.setFont(l.getFont().deriveFont(Font.BOLD,22f)); return l; }
+    private JLabel mediumLabel(String s) { JLabel l=new JLabel(s); l.setFont(l.getFont().deriveFont(Font.PLAIN,16f)); return l; }
+    private JButton primaryButton(String text) { JButton b=new JButton(text); b.setBorder(new CompoundBorder(new LineBorder(new Color(60,120,220)), new EmptyBorder(6,12,6,12))); return b; }
+    private JPanel labeled(String label, JComponent field) {
+        JPanel row=new JPanel(new FlowLayout(FlowLayout.LEFT,12,6));
+        JLabel l=new JLabel(label+": "); l.setPreferredSize(new Dimension(190,24));
+        row.add(l); row.add(field); return row;
+    }
+
+    private JComponent buildStatusBar() { JPanel bar=new JPanel(new BorderLayout()); lblStatus=new JLabel("  "); bar.add(lblStatus, BorderLayout.WEST); return bar; }
+    private void updateStatus(String msg) { lblStatus.setText("  "+LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss"))+" — "+msg); }
+
+    private void styleTable(JTable t) { t.setFillsViewportHeight(true); t.setRowHeight(24); t.setAutoCreateRowSorter(true); }
+    private void formatColumns(JTable t) {
+        DefaultTableCellRenderer right=new DefaultTableCellRenderer(); right.setHorizontalAlignment(SwingConstants.RIGHT);
+        for(int i=0;i<t.getColumnCount();i++) if(Number.class.isAssignableFrom(t.getColumnClass(i))) t.getColumnModel().getColumn(i).setCellRenderer(right);
+    }
+
+    private static void setNiceLAF() {
+        try { for (UIManager.LookAndFeelInfo info:UIManager.getInstalledLookAndFeels()) if("Nimbus".equals(info.getName())) { UIManager.setLookAndFeel(info.getClassName()); return; } } catch(Exception ignored){}
+    }
+    private static void showError(String msg){
+        if (!SwingUtilities.isEventDispatchThread()) { SwingUtilities.invokeLater(() -> showError(msg)); return; }
+        JOptionPane.showMessageDialog(null,msg,"Error",JOptionPane.ERROR_MESSAGE);
+    }
+
+    private static double parsePositiveDouble(String s,String f){ double v=Double.parseDouble(s); if(v<=0) throw new IllegalArgumentException(f+" must be >0."); return v; }
+    private static int parsePositiveInt(String s,String f){ int v=Integer.parseInt(s); if(v<=0) throw new IllegalArgumentException(f+" must be >0."); return v; }
+    private static int parseNonNegativeInt(String s,String f){ int v=Integer.parseInt(s); if(v<0) throw new IllegalArgumentException(f+" must be ≥0."); return v; }
+
+    private int getValue(LocalDate d) { return logs.get(d.toEpochDay()); }
+}
@@ -0,0 +1,90 @@
+package quittrack;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+
+/** User settings as stored in {@code settings.properties}. Field name constants double as property keys. */
+public class Settings {
+    public static final String CURRENCY = "currency";
+    public static final String PRICE_PER_PACK = "pricePerPack";
+    public static final String CIGS_PER_PACK = "cigsPerPack";
+    public static final String BASELINE_PER_DAY = "baselinePerDay";
+    public static final String NOTIFICATIONS_ENABLED = "notificationsEnabled";
+    public static final String QUIT_DATE = "quitDate";
+    public static final String BACKUP_RETENTION = "backupRetention";
+
+    /** Fields that change how much money a day counts as saved. */
+    public static final Set<String> SAVINGS_FIELDS = Set.of(CURRENCY, PRICE_PER_PACK, CIGS_PER_PACK, BASELINE_PER_DAY);
+
+    String currency = "$";
+    double pricePerPack = 7.0;
+    int cigsPerPack = 20;
+    int baselinePerDay = 20;
+    boolean notificationsEnabled = true;
+    LocalDate quitDate = LocalDate.now();
+    String backupRetention = BackupStore.Retention.DEFAULT.toString();
+
+    public double pricePerCig() {
+        return cigsPerPack > 0 ? pricePerPack / cigsPerPack : 0.0;
+    }
+
+    public Settings copy() {
+        Settings s = new Settings();
+        s.copyFrom(this);
+        return s;
+    }
+
+    void copyFrom(Settings o) {
+        currency = o.currency;
+        pricePerPack = o.pricePerPack;
+        cigsPerPack = o.cigsPerPack;
+        baselinePerDay = o.baselinePerDay;
+        notificationsEnabled = o.notificationsEnabled;
+        quitDate = o.quitDate;
+        backupRetention = o.backupRetention;
+    }
+
+    /** Names of the fields whose values differ from {@code o}. */
+    public Set<String> diff(Settings o) {
+        Set<String> changed = new LinkedHashSet<>();
+        if (!Objects.equals(currency, o.currency)) changed.add(CURRENCY);
+        if (pricePerPack != o.pricePerPack) changed.add(PRICE_PER_PACK);
+        if (cigsPerPack != o.cigsPerPack) changed.add(CIGS_PER_PACK);
+        if (baselinePerDay != o.baselinePerDay) changed.add(BASELINE_PER_DAY);
+        if (notificationsEnabled != o.notificationsEnabled) changed.add(NOTIFICATIONS_ENABLED);
+        if (!Objects.equals(quitDate, o.quitDate)) changed.add(QUIT_DATE);
+        if (!Objects.equals(backupRetention, o.backupRetention)) changed.add(BACKUP_RETENTION);
+        return changed;
+    }
+
+    public static Settings fromProperties(Properties props) {
+        Settings s = new Settings();
+        s.currency = props.getProperty(CURRENCY, "$");
+        s.pricePerPack = parseDoubleOrDefault(props.getProperty(PRICE_PER_PACK), 7.0);
+        s.cigsPerPack = parseIntOrDefault(props.getProperty(CIGS_PER_PACK), 20);
+        s.baselinePerDay = parseIntOrDefault(props.getProperty(BASELINE_PER_DAY), 20);
+        s.notificationsEnabled = Boolean.parseBoolean(props.getProperty(NOTIFICATIONS_ENABLED, "true"));
+        String qd = props.getProperty(QUIT_DATE);
+        s.quitDate = (qd == null || qd.isBlank()) ? LocalDate.now() : LocalDate.parse(qd);
+        s.backupRetention = props.getProperty(BACKUP_RETENTION, s.backupRetention);
+        return s;
+    }
+
+    public Properties toProperties() {
+        Properties props = new Properties();
+        props.setProperty(CURRENCY, currency);
+        props.setProperty(PRICE_PER_PACK, String.valueOf(pricePerPack));
+        props.setProperty(CIGS_PER_PACK, String.valueOf(cigsPerPack));
+        props.setProperty(BASELINE_PER_DAY, String.valueOf(baselinePerDay));
+        props.setProperty(NOTIFICATIONS_ENABLED, String.valueOf(notificationsEnabled));
+        props.setProperty(QUIT_DATE, quitDate.toString());
+        props.setProperty(BACKUP_RETENTION, backupRetention);
+        return props;
+    }
+
+    private static double parseDoubleOrDefault(String s,double d){ try{return s==null?d:Double.parseDouble(s);}catch(Exception e){return d;} }
+    private static int parseIntOrDefault(String s,int d){ try{return s==null?d:Integer.parseInt(s);}catch(Exception e){return d;} }
+}
@@ -0,0 +1,40 @@
+package quittrack;
+
+import java.util.logging.Logger;
+
+/**
+ * Records how long each startup phase took and when the first paint happened,
+ * then logs one summary line. Phases run on different threads, so it is synchronized.
+ */
+final class StartupTimer {
+    private static final Logger LOG = Logger.getLogger(StartupTimer.class.getName());
+
+    private final long start = System.nanoTime();
+    private final StringBuilder summary = new StringBuilder();
+    private boolean logged;
+
+    /** Records a phase that began at {@code phaseStartNanos} and ends now. */
+    synchronized void phase(String name, long phaseStartNanos) {
+        append(name + "=" + millis(phaseStartNanos, System.nanoTime()) + "ms");
+    }
+
+    /** Records a point in time, measured from when {@code main} started. */
+    synchronized void mark(String name) {
+        append(name + "@" + millis(start, System.nanoTime()) + "ms");
+    }
+
+    synchronized void log() {
+        if (logged) return;
+        logged = true;
+        LOG.info("Startup timings: " + summary);
+    }
+
+    private void append(String s) {
+        if (summary.length() > 0) summary.append(", ");
+        summary.append(s);
+    }
+
+    private static long millis(long from, long to) {
+        return (to - from) / 1_000_000;
+    }
+}
@@ -0,0 +1,111 @@
+package quittrack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Smoke-free runs since the quit date, kept incrementally.
+ * Only smoking days (count &gt; 0) are stored; the runs are the gaps between them, and a
+ * multiset of gap lengths gives the longest run. Current and longest streak are O(log n),
+ * a put is O(log n), and listing every run is linear in the number of runs.
+ */
+public class StreakIndex {
+    /** Inclusive run of smoke-free days. */
+    public record Streak(long startDay, long endDay) {
+        public long length() { return endDay - startDay + 1; }
+    }
+
+    private final LogStore store;
+    private long quitDay = LogStore.NONE;
+    private final TreeSet<Long> smokeDays = new TreeSet<>();          // days >= quitDay with count > 0
+    private final TreeMap<Long, Integer> gapLengths = new TreeMap<>(); // closed run length -> how many
+
+    public StreakIndex(LogStore store) {
+        this.store = store;
+    }
+
+    /** Runs are only counted from the quit date on, so moving it re-indexes. */
+    public void setQuitDay(long quitDay) {
+        if (this.quitDay == quitDay) return;
+        this.quitDay = quitDay;
+        rebuild();
+    }
+
+    public void rebuild() {
+        smokeDays.clear();
+        gapLengths.clear();
+        if (quitDay == LogStore.NONE) return;
+        long prev = quitDay - 1;
+        for (long d = store.nextDay(quitDay); d != LogStore.NONE; d = store.nextDay(d + 1)) {
+            if (store.get(d) == 0) continue;
+            smokeDays.add(d);
+            addGap(d - prev - 1);
+            prev = d;
+        }
+    }
+
+    /** Applies a change the store already holds; -1 means "no entry" as in {@link LogStore#put}. */
+    public void update(long day, int prev, int now) {
+        if (quitDay == LogStore.NONE || day < quitDay) return;
+        boolean was = prev > 0;
+        boolean is = now > 0;
+        if (was == is) return;
+        Long lower = smokeDays.lower(day);
+        Long higher = smokeDays.higher(day);
+        long lo = lower == null ? quitDay - 1 : lower;
+        if (is) {
+            smokeDays.add(day);
+            if (higher != null) {
+                removeGap(higher - lo - 1);
+                addGap(higher - day - 1);
+            }
+            addGap(day - lo - 1);
+        } else {
+            smokeDays.remove(day);
+            removeGap(day - lo - 1);
+            if (higher != null) {
+                removeGap(higher - day - 1);
+                addGap(higher - lo - 1);
+            }
+        }
+    }
+
+    /** Smoke-free days ending today, the way {@code computeSmokeFreeStreak} always counted them. */
+    public int currentStreak(long today) {
+        if (store.get(today) > 0) return 0;
+        if (quitDay == LogStore.NONE) return 0;
+        Long last = smokeDays.floor(today);
+        long before = Math.min(quitDay, today) - 1;
+        if (last != null) before = Math.max(before, last);
+        return (int) (today - before);
+    }
+
+    public long longestStreak(long today) {
+        long longest = gapLengths.isEmpty() ? 0 : gapLengths.lastKey();
+        return Math.max(longest, currentStreak(today));
+    }
+
+    /** Every run from the quit date up to today, oldest first. */
+    public List<Streak> streaks(long today) {
+        List<Streak> out = new ArrayList<>();
+        if (quitDay == LogStore.NONE) return out;
+        long prev = quitDay - 1;
+        for (long d : smokeDays) {
+            if (d > today) break;
+            if (d - prev > 1) out.add(new Streak(prev + 1, d - 1));
+            prev = d;
+        }
+        if (today > prev) out.add(new Streak(prev + 1, today));
+        return out;
+    }
+
+    private void addGap(long len) {
+        if (len > 0) gapLengths.merge(len, 1, Integer::sum);
+    }
+
+    private void removeGap(long len) {
+        if (len > 0) gapLengths.computeIfPresent(len, (k, c) -> c == 1 ? null : c - 1);
+    }
+}
@@ -0,0 +1,116 @@
+package quittrack;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.nio.file.Path;
+
+/**
+ * Flight Recorder events for the I/O and computation paths. Each operation commits one JFR
+ * event (duration, bytes, rows, error) and feeds the same numbers into {@link Metrics}. Record
+ * with {@code -XX:StartFlightRecording=filename=quittrack.jfr} and look for the "QuitTrack"
+ * category; when no recording is running the events cost next to nothing.
+ */
+public final class Telemetry {
+    private Telemetry() {}
+
+    @Name("quittrack.Io")
+    @Label("QuitTrack I/O")
+    @Category("QuitTrack")
+    @Description("Loading or saving logs, settings or backups")
+    @StackTrace(false)
+    static final class IoEvent extends Event {
+        @Label("Operation") String operation;
+        @Label("Path") String path;
+        @Label("Bytes Read") @DataAmount long bytesRead;
+        @Label("Bytes Written") @DataAmount long bytesWritten;
+        @Label("Rows") int rows;
+        @Label("Error") String error;
+    }
+
+    @Name("quittrack.Compute")
+    @Label("QuitTrack Computation")
+    @Category("QuitTrack")
+    @Description("A derived value computed from the logs")
+    @StackTrace(false)
+    public static final class Compute extends Event {
+        @Label("Operation") String operation;
+        @Label("Days") int days;
+        private transient long start;
+
+        /** Ends the computation over {@code days} logged days. */
+        public void end(int days) {
+            long nanos = System.nanoTime() - start;
+            end();
+            this.days = days;
+            commit();
+            Metrics.time(operation, nanos);
+        }
+    }
+
+    public static Compute compute(String operation) {
+        Compute c = new Compute();
+        c.operation = operation;
+        c.start = System.nanoTime();
+        c.begin();
+        return c;
+    }
+
+    /** One I/O operation in progress; report what it did, then {@link #end()} it exactly once. */
+    public static final class Io {
+        private final IoEvent event = new IoEvent();
+        private final long start = System.nanoTime();
+
+        private Io(String operation, Path path) {
+            event.operation = operation;
+            event.path = path == null ? null : path.toString();
+            event.begin();
+        }
+
+        public void read(long bytes) { event.bytesRead += bytes; }
+        public void written(long bytes) { event.bytesWritten += bytes; }
+        public void rows(int rows) { event.rows += rows; }
+
+        public void failed(Throwable t) {
+            event.error = t.getMessage() == null ? t.getClass().getSimpleName() : t.getClass().getSimpleName() + ": " + t.getMessage();
+        }
+
+        public void end() {
+            long nanos = System.nanoTime() - start;
+            event.end();
+            event.commit();
+            String op = event.operation;
+            Metrics.time(op, nanos);
+            if (event.bytesRead > 0) Metrics.count(op + ".bytesRead", event.bytesRead);
+            if (event.bytesWritten > 0) Metrics.count(op + ".bytesWritten", event.bytesWritten);
+            if (event.rows > 0) Metrics.count(op + ".rows", event.rows);
+            if (event.error != null) Metrics.count(op + ".errors", 1);
+        }
+    }
+
+    public static Io begin(String operation, Path path) {
+        return new Io(operation, path);
+    }
+
+    public interface IoTask<T, X extends Exception> {
+        T run(Io io) throws X;
+    }
+
+    /** Runs {@code task} as one I/O event; an exception it throws is recorded, then rethrown. */
+    public static <T, X extends Exception> T io(String operation, Path path, IoTask<T, X> task) throws X {
+        Io io = begin(operation, path);
+        try {
+            return task.run(io);
+        } catch (Exception | Error e) {
+            io.failed(e);
+            throw e;
+        } finally {
+            io.end();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package quittrack;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Small local HTTP/JSON front end for a {@link TrackerService}, one virtual thread per request.
+ * Listens on the loopback interface only.
+ * <pre>
+ * GET    /api/health                      {"users":n}
+ * GET    /api/users/{id}/days/{date}      {"date":"…","cigs":n}
+ * PUT    /api/users/{id}/days/{date}      body {"cigs":n}
+ * DELETE /api/users/{id}/days/{date}
+ * GET    /api/users/{id}/summary[?today=yyyy-MM-dd]
+ * GET    /api/users/{id}/settings
+ * PUT    /api/users/{id}/settings         body: any subset of the settings fields
+ * </pre>
+ * Reads of a user that was never written answer 404; writes create the user.
+ * Run with {@code java quittrack.TrackerHttpServer [--port 8787] [--data DIR]} or
+ * {@code java quittrack.QuitTrackSwing --service …}; without {@code --data} everything stays in memory.
+ */
+public class TrackerHttpServer implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(TrackerHttpServer.class.getName());
+    public static final int DEFAULT_PORT = 8787;
+
+    private static final Pattern DAY = Pattern.compile("/api/users/([^/]+)/days/([^/]+)");
+    private static final Pattern USER = Pattern.compile("/api/users/([^/]+)/(summary|settings)");
+    /** Flat JSON object members: "key": "string" | number | true | false. */
+    private static final Pattern MEMBER = Pattern.compile("\"([^\"]+)\"\\s*:\\s*(?:\"((?:[^\"\\\\]|\\\\.)*)\"|([-+.\\w]+))");
+
+    static {
+        // Responses go out as header + body writes; with Nagle on, each one waits ~40ms for a delayed ACK.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final TrackerService service;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public TrackerHttpServer(TrackerService service, int port) throws IOException {
+        this.service = service;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+    }
+
+    public void start() { server.start(); }
+
+    public int port() { return server.getAddress().getPort(); }
+
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        Path data = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--data" -> data = Paths.get(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        TrackerService service = new TrackerService(data);
+        TrackerHttpServer server = new TrackerHttpServer(service, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            service.close();
+        }, "quittrack-shutdown"));
+        server.start();
+        LOG.info("QuitTrack service listening on http://localhost:" + server.port() + "/api/"
+                + (data == null ? " (in memory)" : " (data in " + data + ")"));
+    }
+
+    // ---------- Routing ----------
+    private void handle(HttpExchange ex) throws IOException {
+        try {
+            String path = ex.getRequestURI().getPath();
+            String method = ex.getRequestMethod();
+            Matcher m;
+            if (path.equals("/api/health")) {
+                if (!method.equals("GET")) { reply(ex, 405, error("Method not allowed")); return; }
+                reply(ex, 200, "{\"users\":" + service.userCount() + "}");
+            } else if ((m = DAY.matcher(path)).matches()) {
+                day(ex, method, m.group(1), parseDate(m.group(2)));
+            } else if ((m = USER.matcher(path)).matches()) {
+                if (m.group(2).equals("summary")) summary(ex, method, m.group(1));
+                else settings(ex, method, m.group(1));
+            } else {
+                reply(ex, 404, error("Not found"));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            reply(ex, 400, error(e.getMessage()));
+        } catch (NoSuchElementException e) {
+            reply(ex, 404, error(e.getMessage()));
+        } catch (RuntimeException e) {
+            LOG.warning("Request failed: " + e);
+            reply(ex, 500, error(String.valueOf(e.getMessage())));
+        } finally {
+            ex.close();
+        }
+    }
+
+    private void day(HttpExchange ex, String method, String user, LocalDate date) throws IOException {
+        long day = date.toEpochDay();
+        switch (method) {
+            case "GET" -> reply(ex, 200, dayJson(date, service.get(user, day)));
+            case "PUT" -> {
+                String cigs = members(body(ex)).get("cigs");
+                if (cigs == null) throw new IllegalArgumentException("Body must be {\"cigs\":n}");
+                int value = Integer.parseInt(cigs);
+                if (value < 0 || value > 200) throw new IllegalArgumentException("cigs must be 0–200.");
+                service.put(user, day, value);
+                reply(ex, 200, dayJson(date, value));
+            }
+            case "DELETE" -> {
+                service.remove(user, day);
+                reply(ex, 204, null);
+            }
+            default -> reply(ex, 405, error("Method not allowed"));
+        }
+    }
+
+    private void summary(HttpExchange ex, String method, String user) throws IOException {
+        if (!method.equals("GET")) { reply(ex, 405, error("Method not allowed")); return; }
+        String query = ex.getRequestURI().getQuery();
+        LocalDate today = query != null && query.startsWith("today=") ? parseDate(query.substring(6)) : LocalDate.now();
+        TrackerService.Summary s = service.summary(user, today.toEpochDay());
+        reply(ex, 200, "{\"streak\":" + s.streak() + ",\"longestStreak\":" + s.longestStreak()
+                + ",\"saved\":" + String.format(Locale.US, "%.2f", s.saved())
+                + ",\"currency\":" + quote(s.currency()) + ",\"loggedDays\":" + s.loggedDays() + "}");
+    }
+
+    private void settings(HttpExchange ex, String method, String user) throws IOException {
+        switch (method) {
+            case "GET" -> reply(ex, 200, settingsJson(service.settings(user)));
+            case "PUT" -> {
+                Map<String, String> fields = members(body(ex));
+                for (Map.Entry<String, String> e : fields.entrySet()) {
+                    switch (e.getKey()) {
+                        case Settings.PRICE_PER_PACK -> {
+                            double v = Double.parseDouble(e.getValue());
+                            if (!(v > 0) || Double.isInfinite(v)) throw new IllegalArgumentException("pricePerPack must be a finite number >0.");
+                        }
+                        case Settings.CIGS_PER_PACK -> {
+                            if (Integer.parseInt(e.getValue()) <= 0) throw new IllegalArgumentException("cigsPerPack must be >0.");
+                        }
+                        case Settings.BASELINE_PER_DAY -> {
+                            if (Integer.parseInt(e.getValue()) < 0) throw new IllegalArgumentException("baselinePerDay must be ≥0.");
+                        }
+                        case Settings.QUIT_DATE -> parseDate(e.getValue());
+                        case Settings.BACKUP_RETENTION -> BackupStore.Retention.parse(e.getValue());
+                        case Settings.CURRENCY, Settings.NOTIFICATIONS_ENABLED -> { }
+                        default -> throw new IllegalArgumentException("Unknown setting: " + e.getKey());
+                    }
+                }
+                Set<String> changed = service.mergeSettings(user, fields);
+                StringJoiner names = new StringJoiner(",", "[", "]");
+                for (String f : changed) names.add(quote(f));
+                reply(ex, 200, "{\"changed\":" + names + "}");
+            }
+            default -> reply(ex, 405, error("Method not allowed"));
+        }
+    }
+
+    // ---------- JSON ----------
+    private static String dayJson(LocalDate date, int cigs) {
+        return "{\"date\":\"" + date + "\",\"cigs\":" + cigs + "}";
+    }
+
+    private static String settingsJson(Settings s) {
+        return "{\"currency\":" + quote(s.currency) + ",\"pricePerPack\":" + s.pricePerPack
+                + ",\"cigsPerPack\":" + s.cigsPerPack + ",\"baselinePerDay\":" + s.baselinePerDay
+                + ",\"notificationsEnabled\":" + s.notificationsEnabled + ",\"quitDate\":\"" + s.quitDate + "\""
+                + ",\"backupRetention\":" + quote(s.backupRetention) + "}";
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+
+    /** The members of a flat JSON object; nested values are not supported (nor needed). */
+    private static Map<String, String> members(String json) {
+        Map<String, String> out = new LinkedHashMap<>();
+        Matcher m = MEMBER.matcher(json);
+        while (m.find()) {
+            String v = m.group(2) != null ? m.group(2).replaceAll("\\\\(.)", "$1") : m.group(3);
+            out.put(m.group(1), v);
+        }
+        return out;
+    }
+
+    private static LocalDate parseDate(String s) {
+        return LocalDate.parse(s);
+    }
+
+    private static String body(HttpExchange ex) throws IOException {
+        return new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static void reply(HttpExchange ex, int status, String json) throws IOException {
+        if (json == null) {
+            ex.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
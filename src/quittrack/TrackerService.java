@@ -0,0 +1,256 @@
+package quittrack;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * The tracking engine without any Swing: one {@link LogModel} per user, many users per JVM.
+ * Users hash onto a fixed set of read/write lock stripes, so calls for different users rarely
+ * contend and reads for the same user (streak, savings) run in parallel.
+ * <p>
+ * With a data directory each user lives in {@code <dir>/<user>/logs.csv},
+ * {@code settings.properties} and {@code prices.csv}, loaded on first use. Changed users are written behind on one
+ * background thread, at most once a second. Only writes create a user; reading one that was never written
+ * throws {@link NoSuchElementException}.
+ */
+public class TrackerService implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(TrackerService.class.getName());
+    private static final Pattern USER_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final int STRIPES = 256; // power of two
+    private static final long FLUSH_MILLIS = 1000;
+
+    /** What the Home tab shows, for one user. */
+    public record Summary(int streak, long longestStreak, double saved, String currency, int loggedDays) {}
+
+    private final Path dataDir; // null: in memory only
+    private final ConcurrentHashMap<String, LogModel> users = new ConcurrentHashMap<>();
+    private final ReadWriteLock[] stripes = new ReadWriteLock[STRIPES];
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService flusher;
+
+    public TrackerService(Path dataDir) {
+        this.dataDir = dataDir;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new ReentrantReadWriteLock();
+        if (dataDir == null) {
+            flusher = null;
+        } else {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "quittrack-service-flush");
+                t.setDaemon(true);
+                return t;
+            });
+            flusher.scheduleWithFixedDelay(this::flush, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public static boolean isValidUser(String user) {
+        return user != null && USER_ID.matcher(user).matches();
+    }
+
+    public int userCount() { return users.size(); }
+
+    // ---------- Reads ----------
+    public int get(String user, long epochDay) {
+        return read(user, m -> m.get(epochDay));
+    }
+
+    public int currentStreak(String user, long today) {
+        return read(user, m -> m.currentStreak(today));
+    }
+
+    public double moneySavedTotal(String user) {
+        return read(user, LogModel::moneySavedTotal);
+    }
+
+    public Summary summary(String user, long today) {
+        return read(user, m -> new Summary(m.currentStreak(today), m.streaks().longestStreak(today),
+                m.moneySavedTotal(), m.settings().currency, m.store().size()));
+    }
+
+    public Settings settings(String user) {
+        return read(user, m -> m.settings().copy());
+    }
+
+    // ---------- Writes ----------
+    /** Returns the previous count, or -1 if the day had no entry. */
+    public int put(String user, long epochDay, int count) {
+        return write(user, m -> {
+            int prev = m.store().contains(epochDay) ? m.get(epochDay) : -1;
+            m.put(epochDay, count);
+            return prev;
+        });
+    }
+
+    public int remove(String user, long epochDay) {
+        return write(user, m -> {
+            int prev = m.store().contains(epochDay) ? m.get(epochDay) : -1;
+            m.remove(epochDay);
+            return prev;
+        });
+    }
+
+    /** Returns the names of the fields that changed. */
+    public Set<String> updateSettings(String user, Settings updated) {
+        return write(user, m -> {
+            Set<String> changed = updated.diff(m.settings());
+            m.updateSettings(updated);
+            return changed;
+        });
+    }
+
+    /**
+     * Sets the given settings properties over the user's current ones in a single write, so
+     * concurrent partial updates all land. Returns the names of the fields that changed.
+     */
+    public Set<String> mergeSettings(String user, Map<String, String> fields) {
+        return write(user, m -> {
+            Properties props = m.settings().toProperties();
+            props.putAll(fields);
+            Settings updated = Settings.fromProperties(props);
+            Set<String> changed = updated.diff(m.settings());
+            m.updateSettings(updated);
+            return changed;
+        });
+    }
+
+    private <T> T read(String user, Function<LogModel, T> f) {
+        LogModel m = existing(user);
+        ReadWriteLock lock = stripe(user);
+        lock.readLock().lock();
+        try {
+            return f.apply(m);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T write(String user, Function<LogModel, T> f) {
+        LogModel m = model(user);
+        ReadWriteLock lock = stripe(user);
+        lock.writeLock().lock();
+        try {
+            T result = f.apply(m);
+            if (flusher != null) dirty.add(user);
+            return result;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private ReadWriteLock stripe(String user) {
+        int h = user.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    private LogModel model(String user) {
+        if (!isValidUser(user)) throw new IllegalArgumentException("Invalid user id: " + user);
+        return users.computeIfAbsent(user, this::open);
+    }
+
+    /** The user's model, loaded from disk if need be, without creating a user that does not exist. */
+    private LogModel existing(String user) {
+        if (!isValidUser(user)) throw new IllegalArgumentException("Invalid user id: " + user);
+        LogModel m = users.get(user);
+        if (m != null) return m;
+        if (dataDir == null || !Files.isDirectory(dataDir.resolve(user))) throw new NoSuchElementException("Unknown user: " + user);
+        return users.computeIfAbsent(user, this::open);
+    }
+
+    // ---------- Persistence ----------
+    private LogModel open(String user) {
+        LogModel m = new LogModel();
+        if (dataDir != null) {
+            Path dir = dataDir.resolve(user);
+            try {
+                Path props = dir.resolve("settings.properties");
+                if (Files.exists(props)) {
+                    Properties p = new Properties();
+                    try (InputStream in = Files.newInputStream(props)) {
+                        p.load(in);
+                    }
+                    m.settings().copyFrom(Settings.fromProperties(p));
+                }
+                Path prices = dir.resolve("prices.csv");
+                if (Files.exists(prices)) m.prices().copyFrom(PriceHistory.read(prices));
+                Path csv = dir.resolve("logs.csv");
+                if (Files.exists(csv)) {
+                    LogCsv.ReadSummary read = LogCsv.read(csv, m.store());
+                    if (read.skipped() > 0) LOG.warning("Loading user " + user + ": " + read);
+                }
+            } catch (IOException | RuntimeException e) {
+                throw new IllegalStateException("Cannot load user " + user + ": " + e.getMessage(), e);
+            }
+        }
+        m.reindex();
+        return m;
+    }
+
+    /** Writes every user changed since the last flush. */
+    public void flush() {
+        for (String user : List.copyOf(dirty)) {
+            dirty.remove(user);
+            LogModel m = users.get(user);
+            if (m == null) continue;
+            LogStore logs;
+            Properties props;
+            PriceHistory prices;
+            ReadWriteLock lock = stripe(user);
+            lock.readLock().lock();
+            try {
+                logs = m.store().copy();
+                props = m.settings().toProperties();
+                prices = m.prices().copy();
+            } finally {
+                lock.readLock().unlock();
+            }
+            try {
+                Path dir = Files.createDirectories(dataDir.resolve(user));
+                Path tmp = dir.resolve("logs.csv.tmp");
+                LogCsv.write(logs, tmp);
+                Files.move(tmp, dir.resolve("logs.csv"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                tmp = dir.resolve("settings.properties.tmp");
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    props.store(out, "QuitTrack Settings");
+                }
+                Files.move(tmp, dir.resolve("settings.properties"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                tmp = dir.resolve("prices.csv.tmp");
+                prices.write(tmp);
+                Files.move(tmp, dir.resolve("prices.csv"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                dirty.add(user); // retried on the next round
+                LOG.log(Level.WARNING, "Saving user " + user + " failed", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (flusher == null) return;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
@@ -0,0 +1,318 @@
+package quittrack;
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartPanel;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The two line charts on the Charts tab (cigarettes and money saved), for the weekly, the
+ * monthly and the all-history view. Each view builds its charts once; afterwards only the
+ * bucket a changed day falls into is rewritten, inside a notify-off block so every change
+ * costs one repaint. Switching views swaps the cached charts into the panels.
+ * <p>
+ * The history view zooms (mouse wheel, drag) and pans (ctrl-drag) over the whole log. It is fed
+ * from a {@link DayPyramid} at the resolution the visible range needs, so it never holds more
+ * than a few points per pixel however many years are logged.
+ */
+public class TrendCharts {
+    /** Where chart values come from. */
+    public interface Source {
+        int cigs(long epochDay);
+        /** Whether the day has an entry at all (a logged 0 does). */
+        boolean logged(long epochDay);
+        /** First and last logged day, or {@link LogStore#NONE}. */
+        long firstDay();
+        long lastDay();
+        long cigs(long fromDay, long toDay);
+        /** Money saved over {@code [fromDay, toDay]}. */
+        double saved(long fromDay, long toDay);
+        String currency();
+    }
+
+    public static final String WEEKLY = "Weekly";
+    public static final String MONTHLY = "Monthly";
+    public static final String HISTORY = "All history";
+
+    private static final DateTimeFormatter LABEL_FMT = DateTimeFormatter.ofPattern("MM-dd");
+
+    private final Source source;
+    private final ChartPanel cigsPanel;
+    private final ChartPanel savedPanel;
+    private final Map<String, Charts> views = new HashMap<>();
+    private Charts current;
+
+    public TrendCharts(Source source) {
+        this.source = source;
+        current = view(WEEKLY);
+        cigsPanel = new ChartPanel(current.cigsChart);
+        savedPanel = new ChartPanel(current.savedChart);
+        cigsPanel.setMouseWheelEnabled(true);
+        savedPanel.setMouseWheelEnabled(true);
+        cigsPanel.addComponentListener(new ComponentAdapter() {
+            @Override public void componentResized(ComponentEvent e) {
+                if (current instanceof History h) h.resampleVisible();
+            }
+        });
+    }
+
+    public ChartPanel cigsPanel() { return cigsPanel; }
+    public ChartPanel savedPanel() { return savedPanel; }
+
+    public void show(String mode) {
+        Charts v = view(MONTHLY.equals(mode) || HISTORY.equals(mode) ? mode : WEEKLY);
+        v.reloadIfStale();
+        if (v == current) return;
+        current = v;
+        cigsPanel.setChart(v.cigsChart);
+        savedPanel.setChart(v.savedChart);
+    }
+
+    /** One day's count changed: rewrite just the bucket holding it, in every built view. */
+    public void dayChanged(long epochDay) {
+        for (Charts v : views.values()) v.update(epochDay);
+    }
+
+    /** Prices, baseline or currency changed, or the whole log was replaced. */
+    public void reloadAll() {
+        for (Charts v : views.values()) v.reload();
+    }
+
+    private Charts view(String mode) {
+        return views.computeIfAbsent(mode, m -> HISTORY.equals(m) ? new History() : new View(m));
+    }
+
+    private abstract static class Charts {
+        JFreeChart cigsChart;
+        JFreeChart savedChart;
+
+        abstract void update(long day);
+        abstract void reload();
+        void reloadIfStale() {}
+
+        /** Charts do not exist yet during the first reload. */
+        void setNotify(boolean on) {
+            if (cigsChart != null) cigsChart.setNotify(on);
+            if (savedChart != null) savedChart.setNotify(on);
+        }
+    }
+
+    private final class View extends Charts {
+        final boolean weekly;
+        final int buckets;
+        final int bucketDays;
+        final DefaultCategoryDataset cigsDs = new DefaultCategoryDataset();
+        final DefaultCategoryDataset savedDs = new DefaultCategoryDataset();
+        final String[] keys;
+        long firstDay;
+        String savedRow;
+
+        View(String mode) {
+            weekly = WEEKLY.equals(mode);
+            buckets = weekly ? 8 : 30;
+            bucketDays = weekly ? 7 : 1;
+            keys = new String[buckets];
+            reload();
+            if (weekly) {
+                cigsChart = ChartFactory.createLineChart("Cigarettes per Week (8 weeks)", "Week start", "Cigarettes", cigsDs);
+                savedChart = ChartFactory.createLineChart("Money Saved per Week (8 weeks)", "Week start", source.currency(), savedDs);
+            } else {
+                cigsChart = ChartFactory.createLineChart("Cigarettes per Day (30 days)", "Day", "Cigarettes", cigsDs);
+                savedChart = ChartFactory.createLineChart("Money Saved per Day (30 days)", "Day", source.currency(), savedDs);
+            }
+        }
+
+        long windowStart() {
+            LocalDate today = LocalDate.now();
+            return weekly ? today.minusWeeks(7).with(DayOfWeek.MONDAY).toEpochDay() : today.minusDays(29).toEpochDay();
+        }
+
+        @Override void reloadIfStale() {
+            if (firstDay != windowStart()) reload();
+        }
+
+        @Override void reload() {
+            setNotify(false);
+            firstDay = windowStart();
+            savedRow = "Saved (" + source.currency() + ")";
+            cigsDs.clear();
+            savedDs.clear();
+            for (int i = 0; i < buckets; i++) {
+                long from = firstDay + (long) i * bucketDays;
+                keys[i] = LocalDate.ofEpochDay(from).format(LABEL_FMT);
+                cigsDs.addValue(bucketCigs(from), "Cigarettes", keys[i]);
+                savedDs.addValue(source.saved(from, from + bucketDays - 1), savedRow, keys[i]);
+            }
+            if (savedChart != null) savedChart.getCategoryPlot().getRangeAxis().setLabel(source.currency());
+            setNotify(true);
+        }
+
+        @Override void update(long day) {
+            if (firstDay != windowStart()) { reload(); return; }
+            long offset = day - firstDay;
+            if (offset < 0 || offset >= (long) buckets * bucketDays) return;
+            int i = (int) (offset / bucketDays);
+            long from = firstDay + (long) i * bucketDays;
+            setNotify(false);
+            cigsDs.setValue(bucketCigs(from), "Cigarettes", keys[i]);
+            savedDs.setValue(source.saved(from, from + bucketDays - 1), savedRow, keys[i]);
+            setNotify(true);
+        }
+
+        private long bucketCigs(long from) {
+            return bucketDays == 1 ? source.cigs(from) : source.cigs(from, from + bucketDays - 1);
+        }
+    }
+
+    // ---------- All history ----------
+    private final class History extends Charts {
+        static final int MIN_WIDTH = 200;
+
+        final ZoneId zone = ZoneId.systemDefault();
+        final DayPyramid pyramid = new DayPyramid();
+        final XYSeries range = new XYSeries("Cigarettes (min–max)", false, true);
+        final XYSeries mean = new XYSeries("Average", false, true);
+        final XYSeries saved = new XYSeries("Saved", false, true);
+        long sampledFrom = LogStore.NONE, sampledTo = LogStore.NONE;
+        int sampledWidth;
+        boolean syncing;
+
+        History() {
+            rebuildPyramid();
+            XYSeriesCollection cigsDs = new XYSeriesCollection();
+            cigsDs.addSeries(range);
+            cigsDs.addSeries(mean);
+            cigsChart = ChartFactory.createTimeSeriesChart("Cigarettes per Day (all history)", "Date", "Cigarettes", cigsDs, true, true, false);
+            savedChart = ChartFactory.createTimeSeriesChart("Money Saved (cumulative)", "Date", source.currency(), new XYSeriesCollection(saved), false, true, false);
+            resample(pyramid.firstDay(), pyramid.lastDay());
+            XYPlot cigsPlot = cigsChart.getXYPlot(), savedPlot = savedChart.getXYPlot();
+            cigsPlot.setDomainPannable(true);
+            savedPlot.setDomainPannable(true);
+            // Zooming or panning either chart moves the other to the same dates
+            cigsPlot.getDomainAxis().addChangeListener(e -> rangeChanged(cigsPlot.getDomainAxis(), savedPlot.getDomainAxis()));
+            savedPlot.getDomainAxis().addChangeListener(e -> rangeChanged(savedPlot.getDomainAxis(), cigsPlot.getDomainAxis()));
+        }
+
+        @Override void update(long day) {
+            if (!pyramid.update(day, source.logged(day) ? source.cigs(day) : -1)) rebuildPyramid();
+            resample(sampledFrom, sampledTo);
+        }
+
+        @Override void reload() {
+            rebuildPyramid();
+            savedChart.getXYPlot().getRangeAxis().setLabel(source.currency());
+            resample(sampledFrom, sampledTo);
+        }
+
+        /** Called after a resize; a wider panel can take a finer level. */
+        void resampleVisible() {
+            if (width() != sampledWidth) resample(sampledFrom, sampledTo);
+        }
+
+        private void rebuildPyramid() {
+            long first = source.firstDay();
+            long last = first == LogStore.NONE ? LogStore.NONE : Math.max(source.lastDay(), LocalDate.now().toEpochDay());
+            pyramid.rebuild(first, last, d -> source.logged(d) ? source.cigs(d) : -1);
+        }
+
+        private void rangeChanged(ValueAxis changed, ValueAxis other) {
+            if (syncing) return;
+            syncing = true;
+            try {
+                if (other.getLowerBound() != changed.getLowerBound() || other.getUpperBound() != changed.getUpperBound()) {
+                    other.setRange(changed.getLowerBound(), changed.getUpperBound());
+                }
+                long from = day((long) changed.getLowerBound()), to = day((long) changed.getUpperBound());
+                if (from != sampledFrom || to != sampledTo) resample(from, to);
+            } finally {
+                syncing = false;
+            }
+        }
+
+        /**
+         * Fills the series for a view of {@code [fromDay, toDay]}: that range at the finest level
+         * fitting the panel width, the rest of the history at the level fitting all of it, so
+         * auto-range still covers everything and a pan never shows an empty plot.
+         */
+        private void resample(long fromDay, long toDay) {
+            long first = pyramid.firstDay(), last = pyramid.lastDay();
+            int width = width();
+            setNotify(false);
+            boolean wasSyncing = syncing;
+            syncing = true; // dataset changes may re-fit auto-ranged axes
+            try {
+                range.clear();
+                mean.clear();
+                saved.clear();
+                if (first == LogStore.NONE) return;
+                if (fromDay == LogStore.NONE || fromDay < first) fromDay = first;
+                if (toDay == LogStore.NONE || toDay > last) toDay = last;
+                if (toDay < fromDay) toDay = fromDay;
+                int outer = pyramid.levelFor(last - first + 1, width);
+                int inner = pyramid.levelFor(toDay - fromDay + 1, width);
+                long inFrom = Math.max(first, alignDown(fromDay, inner) - DayPyramid.bucketDays(inner));
+                long inTo = Math.min(last, alignDown(toDay, inner) + 2 * DayPyramid.bucketDays(inner) - 1);
+                emit(outer, first, inFrom - 1, first);
+                emit(inner, inFrom, inTo, first);
+                emit(outer, inTo + 1, last, first);
+                sampledFrom = fromDay;
+                sampledTo = toDay;
+                sampledWidth = width;
+            } finally {
+                syncing = wasSyncing;
+                setNotify(true);
+            }
+        }
+
+        /** Adds the level-{@code level} buckets lying wholly inside {@code [fromDay, toDay]}. */
+        private void emit(int level, long fromDay, long toDay, long first) {
+            if (toDay < fromDay) return;
+            long len = DayPyramid.bucketDays(level);
+            int i = (int) ((fromDay - pyramid.firstDay() + len - 1) >> level);
+            for (; i < pyramid.bucketCount(level); i++) {
+                long start = pyramid.bucketStart(level, i);
+                long end = Math.min(start + len - 1, pyramid.lastDay());
+                if (end > toDay) break;
+                long x0 = millis(start), x1 = millis(end + 1);
+                double mid = x0 + (x1 - x0) / 2.0;
+                int logged = pyramid.logged(level, i);
+                if (logged > 0) {
+                    range.add(mid, pyramid.min(level, i), false);
+                    if (pyramid.max(level, i) != pyramid.min(level, i)) range.add(mid, pyramid.max(level, i), false);
+                    mean.add(mid, pyramid.sum(level, i) / (double) logged, false);
+                }
+                saved.add(x1, source.saved(first, end), false);
+            }
+        }
+
+        private long alignDown(long day, int level) {
+            return pyramid.firstDay() + (((day - pyramid.firstDay()) >> level) << level);
+        }
+
+        private int width() {
+            return Math.max(MIN_WIDTH, cigsPanel == null ? 0 : cigsPanel.getWidth());
+        }
+
+        private long millis(long epochDay) {
+            return LocalDate.ofEpochDay(epochDay).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+
+        private long day(long millis) {
+            return Instant.ofEpochMilli(millis).atZone(zone).toLocalDate().toEpochDay();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package quittrack;
+
+import javax.swing.table.AbstractTableModel;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Every Monday–Sunday week from the first log entry through the current week, for the Weekly
+ * tab. All that is kept per week is its total (an int, read from {@link DayAggregates}); a
+ * row's cells are built when the table asks for them, and the last {@link #CACHED_ROWS} rows
+ * are cached. Sorting and the "more than N" filter are a permutation of week indexes, so neither
+ * builds the rows. A changed day updates just its week's row.
+ */
+public class WeeklyTableModel extends AbstractTableModel {
+    public enum Order {
+        NEWEST("Newest first"), OLDEST("Oldest first"), MOST("Most cigarettes"), FEWEST("Fewest cigarettes");
+
+        private final String label;
+        Order(String label) { this.label = label; }
+        @Override public String toString() { return label; }
+    }
+
+    private static final String[] COLUMNS = {"Week (Mon–Sun)", "Total cigarettes", "Average/day"};
+    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final int CACHED_ROWS = 256;
+    private static final int NO_FILTER = -1;
+
+    private record Row(String week, Integer total, Double average) {}
+
+    private final LogStore store;
+    private final DayAggregates aggregates;
+    private long firstMonday;          // epoch day of week 0
+    private int[] totals = new int[0]; // per week
+    private int[] order = new int[0];  // view row -> week
+    private int[] rowOf = new int[0];  // week -> view row, -1 when filtered out
+    private Order sort = Order.NEWEST;
+    private int above = NO_FILTER;
+    private final Map<Integer, Row> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<Integer, Row> eldest) {
+            return size() > CACHED_ROWS;
+        }
+    };
+
+    public WeeklyTableModel(LogStore store, DayAggregates aggregates) {
+        this.store = store;
+        this.aggregates = aggregates;
+        rebuild();
+    }
+
+    public void setOrder(Order sort) {
+        if (this.sort == sort) return;
+        this.sort = sort;
+        reorder();
+        fireTableDataChanged();
+    }
+
+    /** Shows only the weeks with more than {@code cigs} cigarettes; negative shows every week. */
+    public void setFilter(int cigs) {
+        int f = Math.max(NO_FILTER, cigs);
+        if (above == f) return;
+        above = f;
+        reorder();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Re-reads the weeks overlapping {@code [fromDay, toDay]}. When the order stays as it was
+     * (sorted by week, no week crossing the filter) only those rows are announced; otherwise
+     * the view is re-sorted. Days outside the weeks shown rebuild the lot; the range is first cut
+     * to those weeks plus the logged days and today, as a price edit announces its whole segment.
+     */
+    public void daysChanged(long fromDay, long toDay) {
+        long lastDay = firstMonday + totals.length * 7L - 1;
+        long today = LocalDate.now().toEpochDay();
+        fromDay = Math.max(fromDay, Math.min(firstMonday, store.isEmpty() ? today : Math.min(store.firstDay(), today)));
+        toDay = Math.min(toDay, Math.max(lastDay, store.isEmpty() ? today : Math.max(store.lastDay(), today)));
+        if (fromDay > toDay && today <= lastDay) return; // e.g. a price that starts after today and the last log
+        if (fromDay < firstMonday || toDay > lastDay || today > lastDay) {
+            rebuild();
+            fireTableDataChanged();
+            return;
+        }
+        int from = week(fromDay), to = week(toDay);
+        boolean moved = false;
+        for (int w = from; w <= to; w++) {
+            int total = weekTotal(w);
+            if (total == totals[w]) continue;
+            if (above != NO_FILTER && (totals[w] > above) != (total > above)) moved = true;
+            totals[w] = total;
+            cache.remove(w);
+        }
+        if (moved || sort == Order.MOST || sort == Order.FEWEST) {
+            reorder();
+            fireTableDataChanged();
+            return;
+        }
+        for (int w = from; w <= to; w++) {
+            if (rowOf[w] >= 0) fireTableRowsUpdated(rowOf[w], rowOf[w]);
+        }
+    }
+
+    /** Re-reads every week. O(weeks log n). */
+    public void rebuild() {
+        long today = LocalDate.now().toEpochDay();
+        long first = store.isEmpty() ? today : Math.min(store.firstDay(), today);
+        long last = store.isEmpty() ? today : Math.max(store.lastDay(), today);
+        firstMonday = LocalDate.ofEpochDay(first).with(DayOfWeek.MONDAY).toEpochDay();
+        int weeks = (int) ((last - firstMonday) / 7 + 1);
+        totals = new int[weeks];
+        for (int w = 0; w < weeks; w++) totals[w] = weekTotal(w);
+        cache.clear();
+        reorder();
+    }
+
+    private int week(long day) {
+        return (int) ((day - firstMonday) / 7);
+    }
+
+    private int weekTotal(int w) {
+        long from = firstMonday + w * 7L;
+        return (int) aggregates.cigs(from, from + 6);
+    }
+
+    private void reorder() {
+        int weeks = totals.length;
+        int n = 0;
+        int[] o = new int[weeks];
+        if (sort == Order.MOST || sort == Order.FEWEST) {
+            long[] keys = new long[weeks]; // total in the high half, week in the low half: one primitive sort
+            for (int w = 0; w < weeks; w++) {
+                if (above == NO_FILTER || totals[w] > above) keys[n++] = (long) totals[w] << 32 | w;
+            }
+            Arrays.sort(keys, 0, n);
+            for (int i = 0; i < n; i++) o[i] = (int) keys[sort == Order.MOST ? n - 1 - i : i];
+        } else {
+            for (int i = 0; i < weeks; i++) {
+                int w = sort == Order.NEWEST ? weeks - 1 - i : i;
+                if (above == NO_FILTER || totals[w] > above) o[n++] = w;
+            }
+        }
+        order = n == weeks ? o : Arrays.copyOf(o, n);
+        rowOf = new int[weeks];
+        Arrays.fill(rowOf, -1);
+        for (int i = 0; i < n; i++) rowOf[order[i]] = i;
+    }
+
+    // ---------- TableModel ----------
+    @Override public int getRowCount() { return order.length; }
+    @Override public int getColumnCount() { return COLUMNS.length; }
+    @Override public String getColumnName(int c) { return COLUMNS[c]; }
+    @Override public Class<?> getColumnClass(int c) { return c == 0 ? String.class : (c == 1 ? Integer.class : Double.class); }
+
+    @Override
+    public Object getValueAt(int row, int col) {
+        Row r = cache.computeIfAbsent(order[row], this::row);
+        if (col == 0) return r.week();
+        return col == 1 ? (Object) r.total() : r.average(); // not Integer : Double, which would unbox to double
+    }
+
+    private Row row(int w) {
+        LocalDate start = LocalDate.ofEpochDay(firstMonday + w * 7L);
+        int total = totals[w];
+        return new Row(start.format(DATE_FMT) + " — " + start.plusDays(6).format(DATE_FMT), total, Math.round(total / 7.0 * 100.0) / 100.0);
+    }
+}
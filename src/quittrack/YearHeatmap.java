@@ -0,0 +1,254 @@
+package quittrack;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.format.TextStyle;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Every logged year as a GitHub-style strip of day cells (a column per week, Monday on top),
+ * newest year first, colored by that day's count. Each year is painted once into a
+ * {@link BufferedImage} tile; scrolling only blits the visible tiles, and a changed day
+ * repaints just its year's tile. Hovering a cell shows the day's values as a tooltip.
+ */
+public class YearHeatmap extends JComponent implements Scrollable {
+    /** Where cell values come from. */
+    public interface Source {
+        int cigs(long epochDay);
+        boolean logged(long epochDay);
+        /** First and last logged day, or {@link LogStore#NONE}. */
+        long firstDay();
+        long lastDay();
+        /** Count at which a cell gets the darkest color (the baseline). */
+        int scaleMax();
+        /** Text of the "saved" part of a tooltip for {@code epochDay} with {@code cigs} cigarettes. */
+        String savedText(long epochDay, int cigs);
+    }
+
+    /** Called when a day cell is clicked. */
+    public interface DayListener {
+        void dayClicked(long epochDay);
+    }
+
+    private static final int CELL = 12;
+    private static final int GAP = 2;
+    private static final int STEP = CELL + GAP;
+    private static final int LEFT = 44;                  // year label and weekday names
+    private static final int TOP = 16;                   // month names
+    private static final int WEEKS = 54;                 // a year touches at most 54 Monday-weeks
+    private static final int TILE_W = LEFT + WEEKS * STEP;
+    private static final int TILE_H = TOP + 7 * STEP + 12;
+    private static final int CACHED_TILES = 24;
+
+    private static final Color NO_ENTRY = new Color(235, 237, 240);
+    private static final Color SMOKE_FREE = new Color(64, 160, 90);
+    private static final Color LOW = new Color(255, 214, 102);
+    private static final Color HIGH = new Color(200, 40, 40);
+    private static final Color TODAY_BORDER = new Color(40, 90, 200);
+
+    private final Source source;
+    private final Map<Integer, BufferedImage> tiles = new LinkedHashMap<>(32, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage> eldest) {
+            return size() > CACHED_TILES;
+        }
+    };
+    private int firstYear, lastYear;
+    private double tileScale = 1;
+    private DayListener dayListener;
+    private Font labelFont;
+
+    public YearHeatmap(Source source) {
+        this.source = source;
+        setOpaque(true);
+        setBackground(Color.WHITE);
+        ToolTipManager.sharedInstance().registerComponent(this);
+        enableEvents(AWTEvent.MOUSE_EVENT_MASK);
+        updateRange();
+        updateFonts();
+    }
+
+    public void setDayListener(DayListener l) { this.dayListener = l; }
+
+    public void invalidateDay(long epochDay) {
+        int year = LocalDate.ofEpochDay(epochDay).getYear();
+        boolean cached = tiles.remove(year) != null;
+        if (!updateRange() && cached) repaint(tileBounds(year));
+    }
+
+    /** Drops the cached years overlapping {@code [fromDay, toDay]}. */
+    public void invalidateRange(long fromDay, long toDay) {
+        int from = LocalDate.ofEpochDay(fromDay).getYear(), to = LocalDate.ofEpochDay(toDay).getYear();
+        tiles.keySet().removeIf(y -> y >= from && y <= to);
+        if (!updateRange()) repaint();
+    }
+
+    public void invalidateAll() {
+        tiles.clear();
+        updateRange();
+        repaint();
+    }
+
+    /** Scrolls so that {@code year} is visible. */
+    public void showYear(int year) {
+        scrollRectToVisible(tileBounds(Math.max(firstYear, Math.min(lastYear, year))));
+    }
+
+    /** Re-reads the year range; true (and a full repaint is queued) when it changed. */
+    private boolean updateRange() {
+        int thisYear = LocalDate.now().getYear();
+        long first = source.firstDay(), last = source.lastDay();
+        int fy = first == LogStore.NONE ? thisYear : Math.min(thisYear, LocalDate.ofEpochDay(first).getYear());
+        int ly = last == LogStore.NONE ? thisYear : Math.max(thisYear, LocalDate.ofEpochDay(last).getYear());
+        if (fy == firstYear && ly == lastYear) return false;
+        firstYear = fy;
+        lastYear = ly;
+        setPreferredSize(new Dimension(TILE_W, (lastYear - firstYear + 1) * TILE_H));
+        revalidate();
+        repaint();
+        return true;
+    }
+
+    @Override
+    public void updateUI() {
+        super.updateUI();
+        updateFonts();
+        if (tiles != null) tiles.clear();
+    }
+
+    private void updateFonts() {
+        Font base = UIManager.getFont("Label.font");
+        if (base == null) base = new Font(Font.SANS_SERIF, Font.PLAIN, 12);
+        labelFont = base.deriveFont(10f);
+    }
+
+    // ---------- Painting ----------
+    @Override
+    protected void paintComponent(Graphics g0) {
+        Graphics2D g = (Graphics2D) g0;
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        AffineTransform tx = g.getTransform();
+        double scale = Math.max(1, tx.getScaleX()); // paint tiles at device resolution on HiDPI screens
+        if (scale != tileScale) {
+            tileScale = scale;
+            tiles.clear();
+        }
+        int fromRow = Math.max(0, clip.y / TILE_H);
+        int toRow = Math.min(lastYear - firstYear, (clip.y + clip.height - 1) / TILE_H);
+        for (int row = fromRow; row <= toRow; row++) {
+            int year = lastYear - row;
+            BufferedImage tile = tiles.computeIfAbsent(year, this::paintTile);
+            g.drawImage(tile, 0, row * TILE_H, TILE_W, TILE_H, null);
+        }
+    }
+
+    private BufferedImage paintTile(int year) {
+        BufferedImage img = new BufferedImage((int) Math.ceil(TILE_W * tileScale), (int) Math.ceil(TILE_H * tileScale), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        try {
+            g.scale(tileScale, tileScale);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(getBackground());
+            g.fillRect(0, 0, TILE_W, TILE_H);
+            g.setFont(labelFont);
+            FontMetrics fm = g.getFontMetrics();
+            g.setColor(Color.DARK_GRAY);
+            g.drawString("Mon", 2, TOP + (CELL + fm.getAscent()) / 2 - 1);
+            g.drawString("Sun", 2, TOP + 6 * STEP + (CELL + fm.getAscent()) / 2 - 1);
+            g.setFont(labelFont.deriveFont(Font.BOLD));
+            g.drawString(String.valueOf(year), 2, TOP - 4);
+            g.setFont(labelFont);
+
+            LocalDate jan1 = LocalDate.of(year, 1, 1);
+            long start = jan1.with(DayOfWeek.MONDAY).toEpochDay();
+            long first = jan1.toEpochDay(), last = LocalDate.of(year, 12, 31).toEpochDay();
+            long today = LocalDate.now().toEpochDay();
+            Color[] palette = palette(Math.max(1, source.scaleMax()));
+            for (Month m : Month.values()) {
+                int week = (int) ((LocalDate.of(year, m, 1).toEpochDay() - start) / 7);
+                g.setColor(Color.DARK_GRAY);
+                g.drawString(m.getDisplayName(TextStyle.SHORT, Locale.getDefault()), LEFT + week * STEP, TOP - 4);
+            }
+            for (long d = first; d <= last; d++) {
+                int x = LEFT + (int) ((d - start) / 7) * STEP;
+                int y = TOP + (int) ((d - start) % 7) * STEP;
+                g.setColor(source.logged(d) ? palette[Math.min(source.cigs(d), palette.length - 1)] : NO_ENTRY);
+                g.fillRect(x, y, CELL, CELL);
+                if (d == today) {
+                    g.setColor(TODAY_BORDER);
+                    g.drawRect(x, y, CELL - 1, CELL - 1);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        return img;
+    }
+
+    /** Colors for counts 0..scaleMax: green for a smoke-free day, then yellow to red. */
+    private static Color[] palette(int scaleMax) {
+        Color[] p = new Color[scaleMax + 1];
+        p[0] = SMOKE_FREE;
+        for (int c = 1; c <= scaleMax; c++) {
+            float t = scaleMax == 1 ? 1f : (c - 1) / (float) (scaleMax - 1);
+            p[c] = new Color(
+                    Math.round(LOW.getRed() + t * (HIGH.getRed() - LOW.getRed())),
+                    Math.round(LOW.getGreen() + t * (HIGH.getGreen() - LOW.getGreen())),
+                    Math.round(LOW.getBlue() + t * (HIGH.getBlue() - LOW.getBlue())));
+        }
+        return p;
+    }
+
+    private Rectangle tileBounds(int year) {
+        return new Rectangle(0, (lastYear - year) * TILE_H, TILE_W, TILE_H);
+    }
+
+    // ---------- Hover and click ----------
+    /** The day under {@code p}, or {@link LogStore#NONE}. */
+    private long dayAt(Point p) {
+        int row = p.y / TILE_H;
+        if (p.y < 0 || row > lastYear - firstYear) return LogStore.NONE;
+        int x = p.x - LEFT, y = p.y - row * TILE_H - TOP;
+        if (x < 0 || y < 0 || x % STEP >= CELL || y % STEP >= CELL || y / STEP >= 7) return LogStore.NONE;
+        int year = lastYear - row;
+        long start = LocalDate.of(year, 1, 1).with(DayOfWeek.MONDAY).toEpochDay();
+        long day = start + (long) (x / STEP) * 7 + y / STEP;
+        return LocalDate.ofEpochDay(day).getYear() == year ? day : LogStore.NONE;
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        long day = dayAt(e.getPoint());
+        if (day == LogStore.NONE) return null;
+        String date = LocalDate.ofEpochDay(day).toString();
+        if (!source.logged(day)) return date + ": no entry";
+        int cigs = source.cigs(day);
+        return date + ": " + cigs + (cigs == 1 ? " cigarette" : " cigarettes") + ", saved " + source.savedText(day, cigs);
+    }
+
+    @Override
+    protected void processMouseEvent(MouseEvent e) {
+        super.processMouseEvent(e);
+        if (e.getID() != MouseEvent.MOUSE_CLICKED || dayListener == null) return;
+        long day = dayAt(e.getPoint());
+        if (day != LogStore.NONE) dayListener.dayClicked(day);
+    }
+
+    // ---------- Scrollable ----------
+    @Override public Dimension getPreferredScrollableViewportSize() { return new Dimension(TILE_W, 4 * TILE_H); }
+    @Override public int getScrollableUnitIncrement(Rectangle visible, int orientation, int direction) { return STEP; }
+    @Override public int getScrollableBlockIncrement(Rectangle visible, int orientation, int direction) { return TILE_H; }
+    @Override public boolean getScrollableTracksViewportWidth() { return false; }
+    @Override public boolean getScrollableTracksViewportHeight() { return false; }
+}
@@ -0,0 +1,118 @@
+package quittrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Every point on disk, base or delta, folded or not, restores to the log it was taken of. */
+class BackupStoreTest {
+    @TempDir
+    Path dir;
+
+    private final TestClock clock = new TestClock(Instant.parse("2026-03-02T08:00:00Z"));
+    private final Map<Long, LogStore> taken = new HashMap<>(); // by point seq
+    private final LogStore log = new LogStore();
+    private BackupStore backups;
+
+    @AfterEach
+    void close() throws InterruptedException {
+        if (backups != null) backups.close(5000);
+    }
+
+    @Test
+    void restoresEveryPointOfADeltaChain() throws Exception {
+        backups = open(new BackupStore.Retention(10_000, 0, 0)); // one point an hour: nothing is pruned
+        Random rnd = new Random(14);
+        for (int i = 0; i < 120; i++) {
+            edit(rnd, i % 40 == 39 ? 300 : 1 + rnd.nextInt(8)); // now and then enough to force a new base
+            backUp();
+            clock.advance(Duration.ofHours(1));
+        }
+        List<BackupStore.Point> points = backups.points();
+        assertEquals(taken.size(), points.size()); // an edit that changed nothing writes no point
+        assertTrue(points.stream().filter(BackupStore.Point::base).count() >= 4, "MAX_CHAIN starts new bases");
+        checkAllRestore();
+
+        BackupStore.Point mid = points.get(70); // Import/Merge reads a point as the whole log at that time
+        LogMerge.Parsed parsed = LogMerge.parse(List.of(mid.file()), backups);
+        assertSameLog(taken.get(mid.seq()), parsed.stores().get(0));
+    }
+
+    @Test
+    void prunedPointsFoldIntoOnesThatStillRestore() throws Exception {
+        backups = open(new BackupStore.Retention(6, 5, 3));
+        Random rnd = new Random(41);
+        for (int i = 0; i < 400; i++) {
+            edit(rnd, rnd.nextInt(10) == 0 ? 250 : 1 + rnd.nextInt(6));
+            backUp();
+            checkAllRestore();
+            clock.advance(Duration.ofMinutes(10 + rnd.nextInt(rnd.nextInt(8) == 0 ? 3 * 24 * 60 : 180)));
+        }
+        List<BackupStore.Point> points = backups.points();
+        assertTrue(points.size() <= 6 + 5 + 3 + 1, points.size() + " points kept");
+        assertEquals(taken.keySet().stream().mapToLong(Long::longValue).max().getAsLong(), points.get(points.size() - 1).seq());
+
+        backups.setRetention(new BackupStore.Retention(0, 0, 1)); // prunes on the backup thread
+        backups.close(5000);
+        backups = open(new BackupStore.Retention(0, 0, 1));
+        assertTrue(backups.points().size() <= 2);
+        checkAllRestore();
+    }
+
+    private BackupStore open(BackupStore.Retention retention) {
+        return new BackupStore(dir, retention, new BackupStore.Listener() {
+            @Override public void backedUp(BackupStore.Point point) {}
+            @Override public void failed(String message) { throw new AssertionError(message); }
+        }, clock);
+    }
+
+    /** Puts and removes {@code n} days, some before 1970 so the first day delta is negative. */
+    private void edit(Random rnd, int n) {
+        for (int k = 0; k < n; k++) {
+            long day = -150 + rnd.nextInt(500);
+            if (rnd.nextInt(4) == 0) log.remove(day);
+            else log.put(day, rnd.nextInt(5) == 0 ? rnd.nextInt(LogStore.MAX_COUNT + 1) : rnd.nextInt(25));
+        }
+    }
+
+    private void backUp() throws Exception {
+        LogStore snapshot = log.copy();
+        BackupStore.Point p = backups.backupNow(snapshot).get();
+        if (p != null) taken.put(p.seq(), snapshot);
+    }
+
+    private void checkAllRestore() throws Exception {
+        for (BackupStore.Point p : backups.points()) assertSameLog(taken.get(p.seq()), backups.restore(p));
+    }
+
+    private static void assertSameLog(LogStore expected, LogStore actual) {
+        assertEquals(expected.size(), actual.size());
+        expected.forEach((day, count) -> assertEquals(count, actual.get(day), "day " + day));
+    }
+
+    private static final class TestClock extends Clock {
+        private volatile Instant now; // read on the backup thread
+
+        TestClock(Instant now) { this.now = now; }
+
+        void advance(Duration d) { now = now.plus(d); }
+
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+}
@@ -0,0 +1,77 @@
+package quittrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/** Random edits against a straight scan of the store: the Fenwick sums must never drift. */
+class DayAggregatesTest {
+    private static final long FIRST = 19_000;
+
+    private final LogStore store = new LogStore();
+    private final PriceHistory prices = new PriceHistory();
+    private final DayAggregates agg = new DayAggregates(store, prices);
+
+    @Test
+    void rangeSumsMatchScanAfterRandomEdits() {
+        Random rnd = new Random(4);
+        prices.reset(9.0, 20, 20);
+        agg.rebuild();
+        for (int step = 0; step < 20_000; step++) {
+            // Mostly near the middle, now and then far out so the index has to grow.
+            long day = rnd.nextInt(100) == 0 ? FIRST - 2_000 + rnd.nextInt(6_000) : FIRST + rnd.nextInt(1_000);
+            int op = rnd.nextInt(10);
+            if (op < 6) {
+                int count = rnd.nextInt(30);
+                agg.update(day, store.put(day, count), count);
+            } else if (op < 9) {
+                agg.update(day, store.remove(day), -1);
+            } else {
+                long from = FIRST + rnd.nextInt(1_000);
+                PriceHistory.Segment s = new PriceHistory.Segment(from, 9.0, 20, 10 + rnd.nextInt(20));
+                int before = prices.put(s).baselinePerDay(); // what covered [from, endOf(s)] until now
+                agg.baselineChanged(from, prices.endOf(s), before, s.baselinePerDay());
+            }
+            if (step % 97 == 0) checkRanges(rnd);
+        }
+        checkRanges(rnd);
+        agg.rebuild();
+        checkRanges(rnd);
+    }
+
+    @Test
+    void emptyStoreAndClearedDays() {
+        agg.rebuild();
+        assertEquals(0, agg.cigs(PriceHistory.BEGINNING + 1, PriceHistory.END));
+        assertEquals(0, agg.avoidedTotal());
+        agg.update(FIRST, store.put(FIRST, 5), 5);
+        agg.update(FIRST, store.remove(FIRST), -1);
+        assertEquals(0, agg.loggedDays(FIRST, FIRST));
+        assertEquals(0, agg.avoided(FIRST - 10, FIRST + 10));
+        assertEquals(3L * 20, agg.avoidedAllDays(FIRST - 1, FIRST + 1, 20));
+    }
+
+    private void checkRanges(Random rnd) {
+        for (int k = 0; k < 20; k++) {
+            long from = FIRST - 2_500 + rnd.nextInt(7_000);
+            long to = from + rnd.nextInt(3_000) - 100; // sometimes empty
+            long cigs = 0, logged = 0, avoided = 0;
+            for (long d = from; d <= to; d++) {
+                if (!store.contains(d)) continue;
+                int c = store.get(d);
+                cigs += c;
+                logged++;
+                avoided += Math.max(0, prices.at(d).baselinePerDay() - c);
+            }
+            String range = "[" + from + ", " + to + "]";
+            assertEquals(cigs, agg.cigs(from, to), "cigs " + range);
+            assertEquals(logged, agg.loggedDays(from, to), "logged " + range);
+            assertEquals(avoided, agg.avoided(from, to), "avoided " + range);
+        }
+        long total = 0;
+        for (long d = store.firstDay(); d != LogStore.NONE; d = store.nextDay(d + 1)) total += Math.max(0, prices.at(d).baselinePerDay() - store.get(d));
+        assertEquals(total, agg.avoidedTotal(), "avoided total");
+    }
+}
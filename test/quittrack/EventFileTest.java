@@ -0,0 +1,110 @@
+package quittrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** The zig-zag varint records of events.bin: round trips, deltas of either sign, torn tails. */
+class EventFileTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsDeltasOfEitherSign() throws IOException {
+        Path path = dir.resolve("events.bin");
+        List<Long> expected = new ArrayList<>();
+        Random rnd = new Random(18);
+        long t = 1_700_000_000L;
+        try (EventFile file = new EventFile(path)) {
+            for (int i = 0; i < 20_000; i++) {
+                switch (rnd.nextInt(8)) {
+                    case 0 -> t -= rnd.nextInt(86_400 * 30);               // back-filled: negative delta
+                    case 1 -> t += (long) rnd.nextInt(1 << 30) * 4;        // years later: a long varint
+                    case 2 -> t = -rnd.nextInt(1_000_000);                 // before 1970
+                    default -> t += rnd.nextInt(7_200);                    // the usual minutes to hours
+                }
+                if (!expected.isEmpty() && rnd.nextInt(10) == 0) {
+                    long gone = expected.remove(rnd.nextInt(expected.size()));
+                    file.appendRemove(gone);
+                } else {
+                    file.append(t);
+                    expected.add(t);
+                }
+            }
+        }
+        assertEquals(sorted(expected), load(path));
+    }
+
+    @Test
+    void dropsATornRecordAndKeepsAppending() throws IOException {
+        Path path = dir.resolve("events.bin");
+        try (EventFile file = new EventFile(path)) {
+            file.append(1_700_000_000L);
+            file.append(1_700_000_060L);
+            file.append(1_600_000_000L); // a five-byte record, cut below
+        }
+        long whole = Files.size(path);
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ch.truncate(whole - 2);
+        }
+        assertEquals(List.of(1_700_000_000L, 1_700_000_060L), load(path));
+        long kept = Files.size(path);
+
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ch.write(ByteBuffer.wrap(new byte[] {(byte) 0x80, (byte) 0x81})); // continuation bits with no end
+        }
+        EventStore store = new EventStore(ZoneOffset.UTC);
+        try (EventFile file = new EventFile(path)) {
+            file.load(store);
+            assertEquals(kept, Files.size(path), "torn bytes truncated");
+            file.append(1_700_000_030L);
+        }
+        assertEquals(List.of(1_700_000_000L, 1_700_000_030L, 1_700_000_060L), load(path));
+    }
+
+    @Test
+    void readTailDecodesAnotherWritersRecords() throws IOException {
+        Path path = dir.resolve("events.bin");
+        try (EventFile mine = new EventFile(path); EventFile other = new EventFile(path)) {
+            mine.load(new EventStore(ZoneOffset.UTC));
+            other.load(new EventStore(ZoneOffset.UTC));
+            mine.append(1_700_000_000L);
+            other.append(1_699_000_000L); // delta from mine's record, which other decodes first
+            other.appendRemove(1_700_000_000L);
+            List<EventFile.Change> tail = mine.readTail();
+            assertNotNull(tail);
+            assertEquals(List.of(new EventFile.Change(1_699_000_000L, false), new EventFile.Change(1_700_000_000L, true)), tail);
+            mine.append(1_699_000_500L);
+        }
+        assertEquals(List.of(1_699_000_000L, 1_699_000_500L), load(path));
+    }
+
+    private static List<Long> load(Path path) throws IOException {
+        EventStore store = new EventStore(ZoneOffset.UTC);
+        try (EventFile file = new EventFile(path)) {
+            file.load(store);
+        }
+        List<Long> out = new ArrayList<>();
+        store.forEach(out::add);
+        return out;
+    }
+
+    private static List<Long> sorted(List<Long> l) {
+        List<Long> s = new ArrayList<>(l);
+        s.sort(null);
+        return s;
+    }
+}
@@ -0,0 +1,73 @@
+package quittrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/** Random adds and removes, in and out of order, against a sorted list. */
+class EventStoreTest {
+    private static final ZoneId ZONE = ZoneId.of("Europe/Berlin"); // DST shifts the local day
+
+    @Test
+    void matchesSortedListAfterRandomEdits() {
+        EventStore store = new EventStore(ZONE);
+        List<Long> expected = new ArrayList<>();
+        Random rnd = new Random(18);
+        long now = 1_700_000_000L;
+        for (int i = 0; i < 30_000; i++) {
+            int op = rnd.nextInt(10);
+            if (op < 6) {
+                now += rnd.nextInt(3_600);
+                add(store, expected, now);                                   // appended in order
+            } else if (op < 8) {
+                add(store, expected, now - rnd.nextInt(86_400 * 400));       // back-filled into an older block
+            } else if (!expected.isEmpty()) {
+                long t = expected.get(rnd.nextInt(expected.size()));
+                assertTrue(store.remove(t));
+                expected.remove(Collections.binarySearch(expected, t));
+            }
+            if (i % 997 == 0) check(store, expected, rnd);
+        }
+        assertFalse(store.remove(now + 1));
+        check(store, expected, rnd);
+    }
+
+    private static void add(EventStore store, List<Long> expected, long t) {
+        store.add(t);
+        int at = Collections.binarySearch(expected, t);
+        expected.add(at < 0 ? -at - 1 : at, t);
+    }
+
+    private static void check(EventStore store, List<Long> expected, Random rnd) {
+        assertEquals(expected.size(), store.size());
+        List<Long> all = new ArrayList<>();
+        store.forEach(all::add);
+        assertEquals(expected, all);
+        if (expected.isEmpty()) return;
+
+        long from = expected.get(rnd.nextInt(expected.size())) - rnd.nextInt(1_000);
+        long to = from + rnd.nextInt(86_400 * 60);
+        List<Long> range = new ArrayList<>();
+        store.forEachInRange(from, to, range::add);
+        assertEquals(expected.stream().filter(t -> t >= from && t <= to).toList(), range);
+
+        long t = expected.get(rnd.nextInt(expected.size()));
+        LocalDateTime local = LocalDateTime.ofInstant(Instant.ofEpochSecond(t), ZONE);
+        long day = local.toLocalDate().toEpochDay();
+        int hour = local.getHour();
+        assertEquals(day, store.dayOf(t));
+        assertEquals(expected.stream().filter(e -> store.dayOf(e) == day).count(), store.dayCount(day));
+        assertEquals(expected.stream().filter(e -> store.dayOf(e) == day
+                && LocalDateTime.ofInstant(Instant.ofEpochSecond(e), ZONE).getHour() == hour).count(), store.hourCount(day, hour));
+    }
+}
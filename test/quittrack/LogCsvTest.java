@@ -0,0 +1,140 @@
+package quittrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** The byte-level CSV reader cut into chunks against the same file read in one piece, and merging. */
+class LogCsvTest {
+    private static final long DAY = LocalDate.of(2024, 1, 1).toEpochDay();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void chunkedReadMatchesOnePieceOnRandomFiles() throws IOException {
+        Random rnd = new Random(12);
+        for (int file = 0; file < 200; file++) {
+            StringBuilder sb = new StringBuilder();
+            if (rnd.nextInt(4) == 0) sb.append('\uFEFF');
+            if (rnd.nextInt(4) == 0) sb.append("date,cigs").append(rnd.nextBoolean() ? "\r\n" : "\n");
+            int lines = 1 + rnd.nextInt(300);
+            for (int i = 0; i < lines; i++) {
+                sb.append(line(rnd));
+                if (i < lines - 1 || rnd.nextBoolean()) sb.append(rnd.nextInt(3) == 0 ? "\r\n" : "\n"); // maybe no final newline
+            }
+            Path p = write("random" + file + ".csv", sb.toString());
+            for (int chunk : new int[]{1, 2, 3, 7, 16, 33, 64, 1 + rnd.nextInt(500)}) assertSameAsOnePiece(p, chunk);
+        }
+    }
+
+    @Test
+    void lineSplitAtEveryOffsetParsesAsOneLine() throws IOException {
+        // Tiny chunk targets land inside lines (in the date, at the comma, between \r and \n); each must move on to a line start.
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 400; i++) sb.append(LocalDate.ofEpochDay(DAY + i)).append(',').append(i % 30).append("\r\n");
+        Path p = write("crlf.csv", sb.toString());
+        for (int chunk = 1; chunk <= 40; chunk++) {
+            LogStore store = new LogStore();
+            assertEquals(new LogCsv.ReadSummary(400, 0, 0), LogCsv.read(p, store, chunk), "chunk " + chunk);
+            assertEquals(400, store.size());
+            for (int i = 0; i < 400; i++) assertEquals(i % 30, store.get(DAY + i));
+        }
+    }
+
+    @Test
+    void missingFinalNewlineKeepsTheLastRow() throws IOException {
+        Path p = write("tail.csv", "2024-01-01,3\n2024-01-02,4\r\n2024-01-03,5");
+        for (int chunk : new int[]{1, 5, 13, 1 << 20}) {
+            LogStore store = new LogStore();
+            assertEquals(new LogCsv.ReadSummary(3, 0, 0), LogCsv.read(p, store, chunk));
+            assertEquals(5, store.get(DAY + 2));
+        }
+    }
+
+    @Test
+    void headerOnlyFileIsOneSkippedLine() throws IOException {
+        for (String text : new String[]{"date,cigs\n", "date,cigs", "\uFEFFdate,cigs\r\n"}) {
+            Path p = write("header.csv", text);
+            for (int chunk : new int[]{1, 4, 1 << 20}) {
+                LogStore store = new LogStore();
+                assertEquals(new LogCsv.ReadSummary(0, 1, 1), LogCsv.read(p, store, chunk));
+                assertEquals(0, store.size());
+            }
+        }
+    }
+
+    @Test
+    void countsSkippedLinesAndTheFirstOneAcrossChunks() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        List<Integer> bad = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            if (i % 37 == 0 || i == 123) {
+                sb.append(i % 2 == 0 ? "2024-02-30,1" : "2024-01-01,32768").append('\n'); // no such day; count too large
+                bad.add(i);
+            } else if (i % 50 == 0) {
+                sb.append("   \n"); // blank: neither a row nor an error
+            } else {
+                sb.append(LocalDate.ofEpochDay(DAY + i)).append(", ").append(i % 20).append('\n');
+            }
+        }
+        Path p = write("bad.csv", sb.toString());
+        int rows = 500 - bad.size() - 10;
+        for (int chunk : new int[]{1, 9, 100, 1 << 20}) {
+            assertEquals(new LogCsv.ReadSummary(rows, bad.size(), bad.get(0)), LogCsv.read(p, new LogStore(), chunk), "chunk " + chunk);
+        }
+    }
+
+    @Test
+    void sumMergeClampsAtMaxCount() throws IOException {
+        Path a = write("a.csv", "2024-01-01,30000\n2024-01-02,5\n");
+        Path b = write("b.csv", "2024-01-01,30000\n2024-01-02,6\n2024-01-03,32767\n");
+        LogStore current = new LogStore();
+        current.put(DAY + 2, 1);
+        LogMerge.Parsed parsed = LogMerge.parse(List.of(a, b), null);
+        assertEquals(new LogCsv.ReadSummary(5, 0, 0), parsed.summary());
+
+        LogStore changes = LogMerge.changes(current, parsed.stores(), LogMerge.Policy.SUM);
+        assertEquals(3, changes.size());
+        assertEquals(LogStore.MAX_COUNT, changes.get(DAY));
+        assertEquals(11, changes.get(DAY + 1));
+        assertEquals(LogStore.MAX_COUNT, changes.get(DAY + 2));
+    }
+
+    private void assertSameAsOnePiece(Path p, int chunk) throws IOException {
+        LogStore expected = new LogStore(), actual = new LogStore();
+        LogCsv.ReadSummary whole = LogCsv.read(p, expected, Integer.MAX_VALUE);
+        assertEquals(whole, LogCsv.read(p, actual, chunk), p.getFileName() + ", chunk " + chunk);
+        assertEquals(expected.size(), actual.size(), p.getFileName() + ", chunk " + chunk);
+        expected.forEach((day, count) -> assertEquals(count, actual.get(day), p.getFileName() + ", chunk " + chunk + ", day " + day));
+    }
+
+    private static String line(Random rnd) {
+        LocalDate date = LocalDate.ofEpochDay(DAY + rnd.nextInt(60)); // repeats: later rows must win
+        return switch (rnd.nextInt(12)) {
+            case 0 -> "";
+            case 1 -> "  \t";
+            case 2 -> date + ",";
+            case 3 -> date + ",x";
+            case 4 -> date.toString();
+            case 5 -> "2024-13-01,4";
+            case 6 -> date + ",99999";
+            case 7 -> " " + date + " ,\t+" + rnd.nextInt(50) + " ";
+            default -> date + "," + rnd.nextInt(50);
+        };
+    }
+
+    private Path write(String name, String text) throws IOException {
+        return Files.write(dir.resolve(name), text.getBytes(StandardCharsets.UTF_8));
+    }
+}
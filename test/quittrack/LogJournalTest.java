@@ -0,0 +1,73 @@
+package quittrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Two writers on the same logs.bin and logs.journal, as two running processes would be. */
+class LogJournalTest {
+    private static final long DAY = 19_500;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void closeKeepsWhatTheOtherWriterAppendedSinceTheLastRead() throws IOException {
+        LogJournal a = open(), b = open();
+        a.load(new LogStore());
+        b.load(new LogStore());
+        a.appendPut(DAY, 3);
+        a.sync();
+        b.appendPut(DAY + 1, 4);
+        b.appendRemove(DAY);
+        b.sync();
+        a.close(); // a never read b's records back
+        b.appendPut(DAY + 2, 5);
+        b.close();
+
+        LogStore loaded = load();
+        assertEquals(2, loaded.size());
+        assertEquals(4, loaded.get(DAY + 1));
+        assertEquals(5, loaded.get(DAY + 2));
+    }
+
+    @Test
+    void closeAppliesARecordItsWriterNeverApplied() throws IOException {
+        LogJournal a = open();
+        a.load(new LogStore());
+        a.appendPut(DAY, 2);
+        a.sync();
+        // Another process journaled two records and died before applying them to logs.bin.
+        try (FileChannel j = FileChannel.open(a.path(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            j.write(ByteBuffer.allocate(14).put((byte) 'P').putInt((int) DAY + 1).putShort((short) 7)
+                    .put((byte) 'R').putInt((int) DAY).putShort((short) 0).flip());
+        }
+        a.close();
+
+        LogStore onDisk = new LogStore();
+        try (LogFile data = LogFile.open(dir.resolve("logs.bin"))) { // the journal is gone: logs.bin alone
+            data.readInto(onDisk);
+        }
+        assertEquals(1, onDisk.size());
+        assertEquals(7, onDisk.get(DAY + 1));
+    }
+
+    private LogJournal open() throws IOException {
+        return new LogJournal(LogFile.open(dir.resolve("logs.bin")), dir.resolve("logs.journal"));
+    }
+
+    private LogStore load() throws IOException {
+        LogStore into = new LogStore();
+        try (LogJournal j = open()) {
+            j.load(into);
+        }
+        return into;
+    }
+}
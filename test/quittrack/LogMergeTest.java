@@ -0,0 +1,124 @@
+package quittrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Each policy day by day, folded over several files against a plain map, and the combined read summary. */
+class LogMergeTest {
+    private static final long FIRST = 19_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void policiesOnOneDay() {
+        for (LogMerge.Policy policy : LogMerge.Policy.values()) assertEquals(7, policy.apply(-1, 7), policy + " on a new day");
+        assertEquals(3, LogMerge.Policy.KEEP_EXISTING.apply(3, 7));
+        assertEquals(7, LogMerge.Policy.OVERWRITE.apply(3, 7));
+        assertEquals(0, LogMerge.Policy.OVERWRITE.apply(3, 0));
+        assertEquals(7, LogMerge.Policy.MAX.apply(3, 7));
+        assertEquals(7, LogMerge.Policy.MAX.apply(7, 3));
+        assertEquals(10, LogMerge.Policy.SUM.apply(3, 7));
+        assertEquals(LogStore.MAX_COUNT, LogMerge.Policy.SUM.apply(LogStore.MAX_COUNT - 1, 2));
+        assertEquals(LogStore.MAX_COUNT, LogMerge.Policy.SUM.apply(LogStore.MAX_COUNT, LogStore.MAX_COUNT));
+    }
+
+    @Test
+    void changesMatchFoldInFileOrder() {
+        Random rnd = new Random(13);
+        for (int trial = 0; trial < 300; trial++) {
+            LogStore current = randomLog(rnd);
+            List<LogStore> incoming = new ArrayList<>();
+            for (int f = rnd.nextInt(5); f > 0; f--) incoming.add(randomLog(rnd));
+            for (LogMerge.Policy policy : LogMerge.Policy.values()) {
+                Map<Long, Integer> merged = new HashMap<>();
+                current.forEach(merged::put);
+                for (LogStore in : incoming) { // one file after another, each day through the policy
+                    in.forEach((day, count) -> merged.put(day, merge(policy, merged.getOrDefault(day, -1), count)));
+                }
+                LogStore changes = LogMerge.changes(current, incoming, policy);
+                int expectedSize = 0;
+                for (Map.Entry<Long, Integer> e : merged.entrySet()) {
+                    long day = e.getKey();
+                    if (current.contains(day) && current.get(day) == e.getValue()) {
+                        assertFalse(changes.contains(day), policy + ", unchanged day " + day);
+                    } else {
+                        expectedSize++;
+                        assertEquals(e.getValue(), changes.get(day), policy + ", day " + day);
+                    }
+                }
+                assertEquals(expectedSize, changes.size(), policy + ", trial " + trial);
+            }
+        }
+    }
+
+    @Test
+    void keepExistingStillTakesTheFirstFileOnNewDays() {
+        LogStore current = new LogStore();
+        current.put(FIRST, 4);
+        LogStore a = new LogStore(), b = new LogStore();
+        a.put(FIRST, 9);
+        a.put(FIRST + 1, 2);
+        b.put(FIRST + 1, 5);
+        LogStore changes = LogMerge.changes(current, List.of(a, b), LogMerge.Policy.KEEP_EXISTING);
+        assertEquals(1, changes.size());
+        assertEquals(2, changes.get(FIRST + 1));
+        assertEquals(5, LogMerge.changes(current, List.of(a, b), LogMerge.Policy.OVERWRITE).get(FIRST + 1));
+    }
+
+    @Test
+    void summaryAddsUpFilesAndNamesTheFirstBadOne() throws IOException {
+        Path good = write("good.csv", "2024-01-01,3\n2024-01-02,4\n");
+        Path bad1 = write("bad1.csv", "2024-01-03,1\n2024-01-03,x\nnope\n");
+        Path bad2 = write("bad2.csv", "oops\n2024-01-04,2\n");
+        LogMerge.Parsed parsed = LogMerge.parse(List.of(good, bad1, bad2), null);
+        assertEquals(new LogCsv.ReadSummary(4, 3, 2), parsed.summary());
+        assertEquals("bad1.csv", parsed.firstBadFile());
+        assertEquals("4 rows, 3 bad lines skipped (first at bad1.csv line 2)", parsed.describe());
+
+        parsed = LogMerge.parse(List.of(bad2, bad1), null);
+        assertEquals(new LogCsv.ReadSummary(2, 3, 1), parsed.summary());
+        assertEquals("bad2.csv", parsed.firstBadFile());
+
+        parsed = LogMerge.parse(List.of(good), null);
+        assertNull(parsed.firstBadFile());
+        assertEquals("2 rows", parsed.describe());
+    }
+
+    private static int merge(LogMerge.Policy policy, int existing, int incoming) {
+        if (existing < 0) return incoming;
+        return switch (policy) {
+            case KEEP_EXISTING -> existing;
+            case OVERWRITE -> incoming;
+            case MAX -> Math.max(existing, incoming);
+            case SUM -> Math.min(LogStore.MAX_COUNT, existing + incoming);
+        };
+    }
+
+    /** Up to 60 days around {@link #FIRST}, some at or near {@link LogStore#MAX_COUNT}. */
+    private static LogStore randomLog(Random rnd) {
+        LogStore s = new LogStore();
+        for (int k = rnd.nextInt(60); k > 0; k--) {
+            s.put(FIRST + rnd.nextInt(40), rnd.nextInt(6) == 0 ? LogStore.MAX_COUNT - rnd.nextInt(3) : rnd.nextInt(30));
+        }
+        return s;
+    }
+
+    private Path write(String name, String text) throws IOException {
+        return Files.write(dir.resolve(name), text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,83 @@
+package quittrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/** Savings at each day's own price against a day-by-day scan, as prices are edited around the log. */
+class PriceHistoryTest {
+    private static final long FIRST = 19_000;
+    private static final int LOGGED_DAYS = 600;
+
+    private final LogModel model = new LogModel();
+    private final TreeMap<Long, PriceHistory.Segment> prices = new TreeMap<>(); // what the model should be using
+
+    @Test
+    void savingsMatchDayByDayScanAfterPriceEdits() {
+        model.reindex();
+        setPrice(new PriceHistory.Segment(PriceHistory.BEGINNING, 7.0, 20, 20));
+        Random rnd = new Random(22);
+        for (int step = 0; step < 6_000; step++) {
+            int op = rnd.nextInt(20);
+            if (op < 10) {
+                model.put(FIRST + rnd.nextInt(LOGGED_DAYS), rnd.nextInt(4) == 0 ? 0 : rnd.nextInt(40));
+            } else if (op < 13) {
+                model.remove(FIRST + rnd.nextInt(LOGGED_DAYS));
+            } else if (op < 18) {
+                long from = switch (rnd.nextInt(3)) {
+                    case 0 -> FIRST - 1 - rnd.nextInt(500);          // before the logged range
+                    case 1 -> FIRST + rnd.nextInt(LOGGED_DAYS);      // inside it
+                    default -> FIRST + LOGGED_DAYS + rnd.nextInt(500); // after it
+                };
+                if (rnd.nextInt(30) == 0) from = PriceHistory.BEGINNING;
+                setPrice(new PriceHistory.Segment(from, 4.0 + rnd.nextInt(80) / 8.0, 10 + rnd.nextInt(16), rnd.nextInt(35)));
+            } else if (prices.size() > 1) {
+                List<Long> starts = new ArrayList<>(prices.keySet());
+                long from = starts.get(1 + rnd.nextInt(starts.size() - 1));
+                model.removePrice(from);
+                prices.remove(from);
+            }
+            if (step % 59 == 0) check(rnd);
+        }
+        check(rnd);
+        model.reindex();
+        check(rnd);
+    }
+
+    private void setPrice(PriceHistory.Segment s) {
+        model.setPrice(s);
+        prices.put(s.fromDay(), s);
+    }
+
+    private void check(Random rnd) {
+        LogStore store = model.store();
+        double total = 0;
+        for (long d = store.firstDay(); d != LogStore.NONE; d = store.nextDay(d + 1)) total += saved(d, store.get(d));
+        assertClose(total, model.moneySavedTotal(), "total");
+
+        for (int k = 0; k < 10; k++) {
+            long from = FIRST - 600 + rnd.nextInt(LOGGED_DAYS + 1_200);
+            long to = from + rnd.nextInt(900) - 50; // sometimes empty
+            double expected = 0;
+            for (long d = from; d <= to; d++) expected += saved(d, store.contains(d) ? store.get(d) : 0); // unlogged: a full baseline day
+            assertClose(expected, model.moneySaved(from, to), "[" + from + ", " + to + "]");
+
+            long day = from + rnd.nextInt(100);
+            assertClose(saved(day, 3), model.moneySavedOn(day, 3), "on " + day);
+        }
+    }
+
+    private double saved(long day, int cigs) {
+        PriceHistory.Segment s = prices.floorEntry(day).getValue();
+        return Math.max(0, s.baselinePerDay() - cigs) * (s.pricePerPack() / s.cigsPerPack());
+    }
+
+    private static void assertClose(double expected, double actual, String what) {
+        assertEquals(expected, actual, 1e-9 * Math.max(1, Math.abs(expected)), what);
+    }
+}
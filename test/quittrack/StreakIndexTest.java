@@ -0,0 +1,88 @@
+package quittrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/** Random edits against the day-by-day walk computeSmokeFreeStreak used to do. */
+class StreakIndexTest {
+    private static final long QUIT = 19_000;
+
+    private final LogStore store = new LogStore();
+    private final StreakIndex index = new StreakIndex(store);
+
+    @Test
+    void matchesWalkAfterRandomEdits() {
+        Random rnd = new Random(5);
+        index.setQuitDay(QUIT);
+        long quit = QUIT;
+        for (int step = 0; step < 20_000; step++) {
+            long day = QUIT - 30 + rnd.nextInt(400);
+            int op = rnd.nextInt(20);
+            if (op < 12) {
+                int count = rnd.nextInt(3) == 0 ? 1 + rnd.nextInt(5) : 0;
+                index.update(day, store.put(day, count), count);
+            } else if (op < 19) {
+                index.update(day, store.remove(day), -1);
+            } else {
+                quit = QUIT - 10 + rnd.nextInt(40);
+                index.setQuitDay(quit);
+            }
+            if (step % 53 == 0) {
+                for (int k = 0; k < 5; k++) check(quit, QUIT - 40 + rnd.nextInt(450));
+            }
+        }
+        index.rebuild();
+        check(quit, QUIT + 200);
+    }
+
+    @Test
+    void noQuitDayMeansNoStreak() {
+        store.put(QUIT, 0);
+        assertEquals(0, index.currentStreak(QUIT));
+        assertEquals(List.of(), index.streaks(QUIT));
+    }
+
+    private void check(long quit, long today) {
+        String at = "quit " + quit + ", today " + today;
+        assertEquals(walkCurrent(quit, today), index.currentStreak(today), "current, " + at);
+        assertEquals(walkStreaks(quit, today), index.streaks(today), "streaks, " + at);
+        long longest = walkCurrent(quit, today);
+        long run = 0;
+        for (long d = quit; d <= store.lastDay(); d++) { // runs closed by a smoking day, wherever it is
+            if (store.get(d) > 0) {
+                longest = Math.max(longest, run);
+                run = 0;
+            } else {
+                run++;
+            }
+        }
+        assertEquals(longest, index.longestStreak(today), "longest, " + at);
+    }
+
+    private int walkCurrent(long quit, long today) {
+        int streak = 0;
+        for (long d = today; store.get(d) <= 0; d--) { // no entry counts as smoke-free
+            streak++;
+            if (d - 1 < quit) break;
+        }
+        return streak;
+    }
+
+    private List<StreakIndex.Streak> walkStreaks(long quit, long today) {
+        List<StreakIndex.Streak> out = new ArrayList<>();
+        long start = quit;
+        for (long d = quit; d <= today; d++) {
+            if (store.get(d) > 0) {
+                if (d > start) out.add(new StreakIndex.Streak(start, d - 1));
+                start = d + 1;
+            }
+        }
+        if (today >= start) out.add(new StreakIndex.Streak(start, today));
+        return out;
+    }
+}
@@ -0,0 +1,72 @@
+package quittrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Settings PUTs over HTTP: the settings form's range rules, and JSON that stays JSON. */
+class TrackerHttpServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private TrackerService service;
+    private TrackerHttpServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        service = new TrackerService(null);
+        server = new TrackerHttpServer(service, 0);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+        service.close();
+    }
+
+    @Test
+    void rejectsSettingsOutsideTheFormsRanges() throws Exception {
+        assertEquals(200, put("{\"pricePerPack\":8.5,\"cigsPerPack\":25,\"baselinePerDay\":0}").statusCode());
+        String before = get().body();
+
+        for (String body : new String[]{
+                "{\"pricePerPack\":NaN}", "{\"pricePerPack\":Infinity}", "{\"pricePerPack\":-Infinity}",
+                "{\"pricePerPack\":0}", "{\"pricePerPack\":-1.5}",
+                "{\"cigsPerPack\":0}", "{\"cigsPerPack\":-20}",
+                "{\"baselinePerDay\":-1}",
+                "{\"pricePerPack\":9,\"baselinePerDay\":-1}"}) { // one bad field rejects the whole PUT
+            HttpResponse<String> r = put(body);
+            assertEquals(400, r.statusCode(), body);
+            assertTrue(r.body().startsWith("{\"error\":"), r.body());
+        }
+        assertEquals(before, get().body());
+        assertTrue(before.contains("\"pricePerPack\":8.5,\"cigsPerPack\":25,\"baselinePerDay\":0,"), before);
+    }
+
+    @Test
+    void unchangedPriceIsNotReportedAsChanged() throws Exception {
+        assertEquals("{\"changed\":[\"pricePerPack\"]}", put("{\"pricePerPack\":6.25}").body());
+        assertEquals("{\"changed\":[]}", put("{\"pricePerPack\":6.25}").body());
+    }
+
+    private HttpResponse<String> put(String json) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri()).PUT(HttpRequest.BodyPublishers.ofString(json)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get() throws Exception {
+        return client.send(HttpRequest.newBuilder(uri()).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri() {
+        return URI.create("http://localhost:" + server.port() + "/api/users/alice/settings");
+    }
+}
@@ -0,0 +1,137 @@
+package quittrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import javax.swing.event.TableModelEvent;
+
+import org.junit.jupiter.api.Test;
+
+/** Every order and filter after random edits against week rows built by hand from the store. */
+class WeeklyTableModelTest {
+    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final int[] FILTERS = {-1, 0, 20, 60, 140};
+
+    private final long today = LocalDate.now().toEpochDay();
+    private final LogStore store = new LogStore();
+    private final PriceHistory prices = new PriceHistory();
+    private final DayAggregates agg = new DayAggregates(store, prices);
+
+    @Test
+    void everyOrderAndFilterMatchesNaiveRowsAfterRandomEdits() {
+        store.put(today - 401, 3); // never removed: the table keeps weeks that lost their first day, the store would not
+        agg.rebuild();
+        WeeklyTableModel model = new WeeklyTableModel(store, agg);
+        Random rnd = new Random(23);
+        for (int round = 0; round < 400; round++) {
+            WeeklyTableModel.Order order = WeeklyTableModel.Order.values()[rnd.nextInt(4)];
+            int filter = FILTERS[rnd.nextInt(FILTERS.length)];
+            model.setOrder(order);
+            model.setFilter(filter);
+            check(model, order, filter);
+            for (int k = 1 + rnd.nextInt(20); k > 0; k--) { // edits under one order and filter, as the tab sees them
+                // Mostly inside the weeks shown, now and then before them so the table has to grow.
+                boolean grow = rnd.nextInt(50) == 0;
+                long day = grow ? store.firstDay() - 1 - rnd.nextInt(60) : today - rnd.nextInt(401);
+                if (!grow && rnd.nextInt(4) == 0) agg.update(day, store.remove(day), -1);
+                else {
+                    int count = rnd.nextInt(40);
+                    agg.update(day, store.put(day, count), count);
+                }
+                model.daysChanged(day, day);
+            }
+            if (round % 7 == 0) model.daysChanged(LocalDate.MIN.toEpochDay(), LocalDate.MAX.toEpochDay()); // as a price edit announces it
+            check(model, order, filter);
+            if (round % 50 == 0) checkAll(model);
+        }
+        checkAll(model);
+    }
+
+    @Test
+    void changeThatStaysOnOneSideOfTheFilterUpdatesOnlyItsRow() {
+        Random rnd = new Random(32);
+        for (long d = today - 300; d <= today; d++) store.put(d, rnd.nextInt(10));
+        agg.rebuild();
+        WeeklyTableModel model = new WeeklyTableModel(store, agg);
+        model.setFilter(20);
+        List<TableModelEvent> events = new ArrayList<>();
+        model.addTableModelListener(events::add);
+        for (WeeklyTableModel.Order order : new WeeklyTableModel.Order[]{WeeklyTableModel.Order.NEWEST, WeeklyTableModel.Order.OLDEST}) {
+            model.setOrder(order);
+            for (int k = 0; k < 200; k++) {
+                long day = today - 7 - rnd.nextInt(280);
+                int before = store.get(day);
+                int count = Math.max(0, before + (rnd.nextBoolean() ? 1 : -1)); // every week stays above 20 or at/below it
+                if (weekTotal(day) - before + count > 20 != weekTotal(day) > 20) continue;
+                agg.update(day, store.put(day, count), count);
+                events.clear();
+                model.daysChanged(day, day);
+                int row = rows(order, 20).indexOf(monday(day));
+                if (row < 0) {
+                    assertEquals(0, events.size(), "day " + day); // filtered out: nothing to announce
+                } else {
+                    assertEquals(1, events.size(), "day " + day);
+                    assertEquals(TableModelEvent.UPDATE, events.get(0).getType());
+                    assertEquals(row, events.get(0).getFirstRow());
+                    assertEquals(row, events.get(0).getLastRow());
+                }
+            }
+            check(model, order, 20);
+        }
+    }
+
+    private void checkAll(WeeklyTableModel model) {
+        for (WeeklyTableModel.Order order : WeeklyTableModel.Order.values()) {
+            model.setOrder(order);
+            for (int filter : FILTERS) {
+                model.setFilter(filter);
+                check(model, order, filter);
+            }
+        }
+    }
+
+    private void check(WeeklyTableModel model, WeeklyTableModel.Order order, int above) {
+        List<Long> expected = rows(order, above);
+        assertEquals(expected.size(), model.getRowCount(), order + ", above " + above);
+        for (int row = 0; row < expected.size(); row++) {
+            long monday = expected.get(row);
+            LocalDate start = LocalDate.ofEpochDay(monday);
+            String what = order + ", above " + above + ", row " + row;
+            assertEquals(start.format(DATE_FMT) + " — " + start.plusDays(6).format(DATE_FMT), model.getValueAt(row, 0), what);
+            assertEquals((int) weekTotal(monday), model.getValueAt(row, 1), what);
+            assertEquals(Math.round(weekTotal(monday) / 7.0 * 100.0) / 100.0, model.getValueAt(row, 2), what);
+        }
+    }
+
+    /** Mondays of the weeks shown, in view order: straight from the store, one week at a time. */
+    private List<Long> rows(WeeklyTableModel.Order order, int above) {
+        long first = store.isEmpty() ? today : Math.min(store.firstDay(), today);
+        long last = store.isEmpty() ? today : Math.max(store.lastDay(), today);
+        List<Long> weeks = new ArrayList<>();
+        for (long m = monday(first); m <= last; m += 7) if (above < 0 || weekTotal(m) > above) weeks.add(m);
+        Comparator<Long> byTotal = Comparator.<Long>comparingLong(this::weekTotal).thenComparingLong(m -> m);
+        switch (order) {
+            case NEWEST -> weeks.sort(Comparator.reverseOrder());
+            case OLDEST -> weeks.sort(Comparator.naturalOrder());
+            case MOST -> weeks.sort(byTotal.reversed());
+            case FEWEST -> weeks.sort(byTotal);
+        }
+        return weeks;
+    }
+
+    private long weekTotal(long day) {
+        long total = 0;
+        for (long d = monday(day), end = d + 6; d <= end; d++) total += store.get(d);
+        return total;
+    }
+
+    private static long monday(long day) {
+        return LocalDate.ofEpochDay(day).with(DayOfWeek.MONDAY).toEpochDay();
+    }
+}